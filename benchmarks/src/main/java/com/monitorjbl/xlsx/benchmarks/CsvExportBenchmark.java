@@ -0,0 +1,122 @@
+package com.monitorjbl.xlsx.benchmarks;
+
+import com.monitorjbl.xlsx.CsvExporter;
+import com.monitorjbl.xlsx.StreamingReader;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second converting a mixed sheet to CSV with {@link CsvExporter}, against
+ * the same conversion written as a loop over rows and cells. Both write the same
+ * output, to a writer that throws it away.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CsvExportBenchmark {
+  private File file;
+
+  @Setup(Level.Trial)
+  public void writeWorkbook() throws IOException {
+    file = Workbooks.write(Workbooks.Shape.MIXED, ReadBenchmark.ROWS, ReadBenchmark.COLUMNS, 1000);
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteWorkbook() {
+    file.delete();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ReadBenchmark.ROWS)
+  public long exporter() throws IOException {
+    NullWriter writer = new NullWriter();
+    try(Workbook workbook = StreamingReader.builder().rowCacheSize(100).open(file)) {
+      CsvExporter.builder().export(workbook.getSheetAt(0), writer);
+    }
+    return writer.chars;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ReadBenchmark.ROWS)
+  public long rowCellLoop() throws IOException {
+    NullWriter writer = new NullWriter();
+    try(Workbook workbook = StreamingReader.builder().rowCacheSize(100).open(file)) {
+      int nextRow = 0;
+      for(Row row : workbook.getSheetAt(0)) {
+        for(; nextRow < row.getRowNum(); nextRow++) {
+          writer.write("\r\n");
+        }
+        int nextColumn = 0;
+        for(Cell cell : row) {
+          for(; nextColumn < cell.getColumnIndex(); nextColumn++) {
+            if(nextColumn > 0) {
+              writer.write(',');
+            }
+          }
+          if(nextColumn > 0) {
+            writer.write(',');
+          }
+          String value = cell.getStringCellValue();
+          if(value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            writer.write('"' + value.replace("\"", "\"\"") + '"');
+          } else {
+            writer.write(value);
+          }
+          nextColumn++;
+        }
+        writer.write("\r\n");
+        nextRow++;
+      }
+    }
+    return writer.chars;
+  }
+
+  private static class NullWriter extends Writer {
+    long chars;
+
+    @Override
+    public void write(int c) {
+      chars++;
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+      chars += len;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+      chars += len;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
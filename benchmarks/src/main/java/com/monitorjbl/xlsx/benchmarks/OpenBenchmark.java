@@ -0,0 +1,78 @@
+package com.monitorjbl.xlsx.benchmarks;
+
+import com.monitorjbl.xlsx.StreamingReader;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from opening a workbook to having its first row, for each way of opening one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OpenBenchmark {
+  @Param({"file", "path", "stream", "forwardOnly", "bytes"})
+  public String source;
+
+  private File file;
+  private byte[] bytes;
+
+  @Setup(Level.Trial)
+  public void writeWorkbook() throws IOException {
+    file = Workbooks.write(Workbooks.Shape.MIXED, ReadBenchmark.ROWS, ReadBenchmark.COLUMNS, 10_000);
+    bytes = Files.readAllBytes(file.toPath());
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteWorkbook() {
+    file.delete();
+  }
+
+  @Benchmark
+  public Object openToFirstRow() throws IOException {
+    //forward-only workbooks keep reading from the stream, so it's only closed at the end
+    try(InputStream is = new FileInputStream(file); Workbook workbook = open(is)) {
+      return workbook.getSheetAt(0).iterator().next();
+    }
+  }
+
+  private Workbook open(InputStream is) {
+    StreamingReader.Builder builder = StreamingReader.builder();
+    switch(source) {
+      case "file":
+        return builder.open(file);
+      case "path":
+        return builder.open(file.toPath());
+      case "bytes":
+        return builder.open(bytes);
+      case "stream":
+        return builder.open(is);
+      case "forwardOnly":
+        return builder.forwardOnly(true).open(is);
+      default:
+        throw new IllegalArgumentException(source);
+    }
+  }
+}
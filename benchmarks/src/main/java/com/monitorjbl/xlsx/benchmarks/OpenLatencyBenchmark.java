@@ -0,0 +1,56 @@
+package com.monitorjbl.xlsx.benchmarks;
+
+import com.monitorjbl.xlsx.StreamingReader;
+import com.monitorjbl.xlsx.WorkbookGenerator;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to open and close a small workbook, which is spent parsing the package and
+ * its metadata rather than streaming rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OpenLatencyBenchmark {
+  @Param({"1", "10"})
+  public int sheets;
+
+  private File file;
+
+  @Setup(Level.Trial)
+  public void writeWorkbook() throws IOException {
+    file = WorkbookGenerator.builder().seed(42).sheets(sheets).rows(20).columns(5).write();
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteWorkbook() {
+    file.delete();
+  }
+
+  @Benchmark
+  public int openAndClose() throws IOException {
+    try(Workbook workbook = StreamingReader.builder().open(file)) {
+      return workbook.getNumberOfSheets();
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.monitorjbl.xlsx.benchmarks;
+
+import com.monitorjbl.xlsx.StreamingReader;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows read per second from sheets of numbers, strings, dates or a mix of all three.
+ * Each value is read with the getter for its type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadBenchmark {
+  static final int ROWS = 50_000;
+  static final int COLUMNS = 10;
+
+  @Param({"numeric", "string", "date", "mixed"})
+  public String shape;
+
+  private File file;
+
+  @Setup(Level.Trial)
+  public void writeWorkbook() throws IOException {
+    file = Workbooks.write(Workbooks.Shape.valueOf(shape.toUpperCase(Locale.ROOT)), ROWS, COLUMNS, 1000);
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteWorkbook() {
+    file.delete();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void readRows(Blackhole blackhole) throws IOException {
+    try(Workbook workbook = StreamingReader.builder().rowCacheSize(100).open(file)) {
+      for(Row row : workbook.getSheetAt(0)) {
+        for(Cell cell : row) {
+          blackhole.consume(typedValue(cell));
+        }
+      }
+    }
+  }
+
+  static Object typedValue(Cell cell) {
+    switch(cell.getCellType()) {
+      case NUMERIC:
+        return DateUtil.isCellDateFormatted(cell) ? cell.getDateCellValue() : (Object) cell.getNumericCellValue();
+      case STRING:
+        return cell.getStringCellValue();
+      default:
+        return null;
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package com.monitorjbl.xlsx.benchmarks;
+
+import com.monitorjbl.xlsx.RowBinder;
+import com.monitorjbl.xlsx.StreamingReader;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second mapping a sheet to objects with {@link RowBinder}, against the same
+ * mapping written by hand with the cell getters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RowBinderBenchmark {
+  private File file;
+  private RowBinder<Trade> binder;
+
+  public enum Side {
+    BUY, SELL
+  }
+
+  public static class Trade {
+    private String name;
+    private int quantity;
+    private double price;
+    private BigDecimal amount;
+    private LocalDate date;
+    private Side side;
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public void setQuantity(int quantity) {
+      this.quantity = quantity;
+    }
+
+    public void setPrice(double price) {
+      this.price = price;
+    }
+
+    public void setAmount(BigDecimal amount) {
+      this.amount = amount;
+    }
+
+    public void setDate(LocalDate date) {
+      this.date = date;
+    }
+
+    public void setSide(Side side) {
+      this.side = side;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void writeWorkbook() throws IOException {
+    file = Files.createTempFile("binder-", ".xlsx").toFile();
+    Random random = new Random(42);
+    SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+    try(OutputStream os = new FileOutputStream(file)) {
+      CellStyle date = workbook.createCellStyle();
+      date.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+      Sheet sheet = workbook.createSheet();
+      Row header = sheet.createRow(0);
+      String[] headers = {"Name", "Quantity", "Price", "Amount", "Date", "Side"};
+      for(int i = 0; i < headers.length; i++) {
+        header.createCell(i).setCellValue(headers[i]);
+      }
+      for(int r = 1; r <= ReadBenchmark.ROWS; r++) {
+        Row row = sheet.createRow(r);
+        row.createCell(0).setCellValue("name " + random.nextInt(1000));
+        row.createCell(1).setCellValue(random.nextInt(10_000));
+        row.createCell(2).setCellValue(random.nextDouble() * 100);
+        row.createCell(3).setCellValue(Math.round(random.nextDouble() * 1_000_000) / 100.0);
+        row.createCell(4).setCellValue(LocalDate.of(2017, 1, 1).plusDays(random.nextInt(3650)));
+        row.getCell(4).setCellStyle(date);
+        row.createCell(5).setCellValue(random.nextBoolean() ? "BUY" : "SELL");
+      }
+      workbook.write(os);
+    } finally {
+      workbook.dispose();
+      workbook.close();
+    }
+    binder = RowBinder.builder(Trade.class).build();
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteWorkbook() {
+    file.delete();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ReadBenchmark.ROWS)
+  public void binder(Blackhole blackhole) throws IOException {
+    try(Workbook workbook = StreamingReader.builder().rowCacheSize(100).open(file)) {
+      Iterator<Trade> trades = binder.iterator(workbook.getSheetAt(0));
+      while(trades.hasNext()) {
+        blackhole.consume(trades.next());
+      }
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ReadBenchmark.ROWS)
+  public void handWritten(Blackhole blackhole) throws IOException {
+    try(Workbook workbook = StreamingReader.builder().rowCacheSize(100).open(file)) {
+      Iterator<Row> rows = workbook.getSheetAt(0).iterator();
+      rows.next();
+      while(rows.hasNext()) {
+        Row row = rows.next();
+        Trade trade = new Trade();
+        trade.setName(row.getCell(0).getStringCellValue());
+        trade.setQuantity((int) row.getCell(1).getNumericCellValue());
+        trade.setPrice(row.getCell(2).getNumericCellValue());
+        trade.setAmount(BigDecimal.valueOf(row.getCell(3).getNumericCellValue()));
+        trade.setDate(row.getCell(4).getLocalDateTimeCellValue().toLocalDate());
+        trade.setSide(Side.valueOf(row.getCell(5).getStringCellValue()));
+        blackhole.consume(trade);
+      }
+    }
+  }
+}
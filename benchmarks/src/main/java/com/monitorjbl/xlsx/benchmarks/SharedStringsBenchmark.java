@@ -0,0 +1,68 @@
+package com.monitorjbl.xlsx.benchmarks;
+
+import com.monitorjbl.xlsx.StreamingReader;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows read per second from a sheet of strings, with the shared strings kept in memory
+ * by POI ({@code sstCacheSizeBytes} of 0) or in a file with a cache of the given size,
+ * for tables of a few or many distinct strings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SharedStringsBenchmark {
+  @Param({"0", "65536", "16777216"})
+  public int sstCacheSizeBytes;
+
+  @Param({"1000", "200000"})
+  public int distinctStrings;
+
+  private File file;
+
+  @Setup(Level.Trial)
+  public void writeWorkbook() throws IOException {
+    file = Workbooks.write(Workbooks.Shape.STRING, ReadBenchmark.ROWS, ReadBenchmark.COLUMNS, distinctStrings);
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteWorkbook() {
+    file.delete();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ReadBenchmark.ROWS)
+  public void readStrings(Blackhole blackhole) throws IOException {
+    try(Workbook workbook = StreamingReader.builder().rowCacheSize(100).sstCacheSizeBytes(sstCacheSizeBytes).open(file)) {
+      for(Row row : workbook.getSheetAt(0)) {
+        for(Cell cell : row) {
+          blackhole.consume(cell.getStringCellValue());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package com.monitorjbl.xlsx.benchmarks;
+
+import com.monitorjbl.xlsx.sst.AppendableStringList;
+import com.monitorjbl.xlsx.sst.BufferedStringsTable;
+import com.monitorjbl.xlsx.sst.CompressedFileBackedList;
+import com.monitorjbl.xlsx.sst.FileBackedList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to build the shared strings cache file, for strings added to the list directly,
+ * with and without compression, and for a generated {@code sharedStrings.xml} read
+ * through {@link BufferedStringsTable}, which adds XML parsing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class SharedStringsBuildBenchmark {
+  private static final int CACHE_SIZE_BYTES = 1024 * 1024;
+
+  @Param({"fileBacked", "compressed", "table"})
+  public String target;
+
+  @Param({"1000000"})
+  public int strings;
+
+  @Benchmark
+  public long build() throws Exception {
+    File file = Files.createTempFile("sst-build-", ".bin").toFile();
+    try {
+      switch(target) {
+        case "fileBacked":
+          try(AppendableStringList list = new FileBackedList(file, CACHE_SIZE_BYTES)) {
+            fill(list);
+          }
+          break;
+        case "compressed":
+          try(AppendableStringList list = new CompressedFileBackedList(file, CACHE_SIZE_BYTES)) {
+            fill(list);
+          }
+          break;
+        case "table":
+          try(BufferedStringsTable sst = BufferedStringsTable.getSharedStringsTable(file, CACHE_SIZE_BYTES, new SyntheticSst(strings))) {
+            if(sst.getUniqueCount() != strings) {
+              throw new IllegalStateException("Read " + sst.getUniqueCount() + " strings");
+            }
+          }
+          break;
+        default:
+          throw new IllegalArgumentException(target);
+      }
+      return file.length();
+    } finally {
+      file.delete();
+    }
+  }
+
+  private void fill(AppendableStringList list) {
+    for(int i = 0; i < strings; i++) {
+      list.add(value(i));
+    }
+  }
+
+  private static String value(int i) {
+    return "shared string value " + i;
+  }
+
+  /**
+   * Generates {@code sharedStrings.xml} as it's read, so the benchmark doesn't need
+   * the whole document in memory.
+   */
+  private static class SyntheticSst extends InputStream {
+    private final int count;
+    private byte[] chunk;
+    private int offset;
+    private int next;
+
+    SyntheticSst(int count) {
+      this.count = count;
+      this.chunk = ("<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" uniqueCount=\""
+          + count + "\">").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int read() {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if(offset == chunk.length && !advance()) {
+        return -1;
+      }
+      int n = Math.min(len, chunk.length - offset);
+      System.arraycopy(chunk, offset, b, off, n);
+      offset += n;
+      return n;
+    }
+
+    private boolean advance() {
+      if(next > count) {
+        return false;
+      }
+      StringBuilder sb = new StringBuilder();
+      for(int end = Math.min(next + 1000, count); next < end; next++) {
+        sb.append("<si><t>").append(value(next)).append("</t></si>");
+      }
+      if(next == count) {
+        sb.append("</sst>");
+        next++;
+      }
+      chunk = sb.toString().getBytes(StandardCharsets.UTF_8);
+      offset = 0;
+      return true;
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.monitorjbl.xlsx.benchmarks;
+
+import com.monitorjbl.xlsx.sst.FileBackedList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups per second from the file-backed shared strings table, on Zipf-distributed
+ * indexes, which is roughly how shared strings are read from real sheets. A cache
+ * size of 0 sends every lookup to the file. Run with {@code -t} to look strings up
+ * from several threads at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SharedStringsCacheBenchmark {
+  static final int STRINGS = 200_000;
+  static final int LOOKUPS = 1 << 21;
+
+  @Param({"0", "262144", "4194304"})
+  public int cacheSizeBytes;
+
+  @Param({"0.8", "1.0", "1.2"})
+  public double skew;
+
+  private File file;
+  private FileBackedList list;
+  private int[] trace;
+
+  @Setup(Level.Trial)
+  public void fillList() throws IOException {
+    file = Files.createTempFile("sst-cache-", ".bin").toFile();
+    list = new FileBackedList(file, cacheSizeBytes);
+    for(int i = 0; i < STRINGS; i++) {
+      list.add("shared string value " + i);
+    }
+    trace = zipf(skew, new Random(42));
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteList() {
+    list.close();
+    file.delete();
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int position;
+
+    @Setup(Level.Trial)
+    public void start() {
+      //threads start at different points of the trace
+      position = (int) (Thread.currentThread().getId() * 7919) & (LOOKUPS - 1);
+    }
+  }
+
+  @Benchmark
+  public String lookup(Cursor cursor) {
+    int index = trace[cursor.position];
+    cursor.position = (cursor.position + 1) & (LOOKUPS - 1);
+    return list.getAt(index);
+  }
+
+  /**
+   * Draws indexes with probability proportional to {@code 1 / rank^skew}, with ranks
+   * shuffled over the index space so popular strings aren't all next to each other.
+   */
+  private static int[] zipf(double skew, Random random) {
+    double[] cumulative = new double[STRINGS];
+    double total = 0;
+    for(int i = 0; i < STRINGS; i++) {
+      total += 1 / Math.pow(i + 1, skew);
+      cumulative[i] = total;
+    }
+
+    int[] permutation = new int[STRINGS];
+    for(int i = 0; i < STRINGS; i++) {
+      permutation[i] = i;
+    }
+    for(int i = STRINGS - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int tmp = permutation[i];
+      permutation[i] = permutation[j];
+      permutation[j] = tmp;
+    }
+
+    int[] trace = new int[LOOKUPS];
+    for(int i = 0; i < LOOKUPS; i++) {
+      int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+      trace[i] = permutation[rank < 0 ? -rank - 1 : rank];
+    }
+    return trace;
+  }
+}
@@ -0,0 +1,83 @@
+package com.monitorjbl.xlsx.benchmarks;
+
+import com.monitorjbl.xlsx.impl.TempFileUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to copy an input stream to a temp file before it can be opened. A buffered
+ * stream can't be handed to the OS to copy, like most network streams, while a plain
+ * file stream can. Set {@code spoolDirectory} to compare a directory against the
+ * default temp directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SpoolBenchmark {
+  @Param({"buffered", "file"})
+  public String stream;
+
+  @Param({"1024", "65536"})
+  public int bufferSize;
+
+  @Param({"100"})
+  public int megabytes;
+
+  @Param({""})
+  public String spoolDirectory;
+
+  private File input;
+
+  @Setup(Level.Trial)
+  public void writeInput() throws IOException {
+    input = Files.createTempFile("spool-input-", ".bin").toFile();
+    Random random = new Random(0);
+    byte[] chunk = new byte[1024 * 1024];
+    try(OutputStream os = new FileOutputStream(input)) {
+      for(int i = 0; i < megabytes; i++) {
+        random.nextBytes(chunk);
+        os.write(chunk);
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteInput() {
+    input.delete();
+  }
+
+  @Benchmark
+  public long spool() throws IOException {
+    InputStream is = "buffered".equals(stream) ? new BufferedInputStream(new FileInputStream(input), bufferSize) : new FileInputStream(input);
+    File directory = spoolDirectory.isEmpty() ? null : new File(spoolDirectory);
+    File f = TempFileUtil.writeInputStreamToFile(is, bufferSize, directory);
+    long length = f.length();
+    f.delete();
+    return length;
+  }
+}
@@ -0,0 +1,48 @@
+package com.monitorjbl.xlsx.benchmarks;
+
+import com.monitorjbl.xlsx.WorkbookGenerator;
+import com.monitorjbl.xlsx.WorkbookGenerator.CellKind;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Writes the workbooks the benchmarks read. The contents only depend on the arguments,
+ * so every run reads the same data.
+ */
+final class Workbooks {
+  private static final long SEED = 42;
+
+  enum Shape {
+    NUMERIC(CellKind.NUMBER),
+    STRING(CellKind.SHARED_STRING),
+    DATE(CellKind.DATE),
+    MIXED(CellKind.NUMBER, CellKind.SHARED_STRING, CellKind.DATE);
+
+    private final CellKind[] cellKinds;
+
+    Shape(CellKind... cellKinds) {
+      this.cellKinds = cellKinds;
+    }
+  }
+
+  private Workbooks() {
+  }
+
+  /**
+   * @param shape           what kind of values the cells hold
+   * @param rows            number of rows
+   * @param columns         number of cells per row
+   * @param distinctStrings number of different strings to draw string cells from
+   * @return a temp file the caller should delete
+   */
+  static File write(Shape shape, int rows, int columns, int distinctStrings) throws IOException {
+    return WorkbookGenerator.builder()
+        .seed(SEED)
+        .rows(rows)
+        .columns(columns)
+        .cellKinds(shape.cellKinds)
+        .distinctStrings(distinctStrings)
+        .write();
+  }
+}
@@ -0,0 +1,349 @@
+package com.monitorjbl.xlsx;
+
+import com.monitorjbl.xlsx.exceptions.NotSupportedException;
+import com.monitorjbl.xlsx.impl.StreamingSheet;
+import com.monitorjbl.xlsx.impl.ValueSink;
+import org.apache.poi.ss.usermodel.Sheet;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes sheets out as CSV, TSV or similar, going straight from the sheet's XML to
+ * the output without building a {@link org.apache.poi.ss.usermodel.Row} or
+ * {@link org.apache.poi.ss.usermodel.Cell} for each value:
+ *
+ * <pre>
+ * try(Workbook workbook = StreamingReader.builder().open(file);
+ *     Writer writer = Files.newBufferedWriter(csv)) {
+ *   CsvExporter.builder().export(workbook.getSheetAt(0), writer);
+ * }
+ * </pre>
+ * <p>
+ * There's one line per row, starting with the first one, and one field per column,
+ * starting with column A. Rows and cells missing from the sheet are written out empty.
+ * </p>
+ */
+public class CsvExporter {
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public enum Quoting {
+    /**
+     * Quote fields that contain the delimiter, the quote character or a line break
+     */
+    MINIMAL,
+    /**
+     * Quote every field that has a value
+     */
+    ALL,
+    /**
+     * Never quote fields, for formats like TSV that don't allow the delimiter in values
+     */
+    NONE
+  }
+
+  public static class Builder {
+    private char delimiter = ',';
+    private char quote = '"';
+    private Quoting quoting = Quoting.MINIMAL;
+    private String lineSeparator = "\r\n";
+    private boolean formatted = true;
+    private int columns = 0;
+    private boolean skipEmptyRows = false;
+    private int bufferSize = 64 * 1024;
+
+    public char getDelimiter() {
+      return delimiter;
+    }
+
+    public char getQuote() {
+      return quote;
+    }
+
+    public Quoting getQuoting() {
+      return quoting;
+    }
+
+    public String getLineSeparator() {
+      return lineSeparator;
+    }
+
+    public boolean isFormatted() {
+      return formatted;
+    }
+
+    public int getColumns() {
+      return columns;
+    }
+
+    public boolean isSkipEmptyRows() {
+      return skipEmptyRows;
+    }
+
+    public int getBufferSize() {
+      return bufferSize;
+    }
+
+    /**
+     * The character fields are separated by, such as {@code '\t'} for TSV.
+     * <p>
+     * Defaults to ','
+     * </p>
+     *
+     * @param delimiter field separator
+     * @return reference to current {@code Builder}
+     */
+    public Builder delimiter(char delimiter) {
+      this.delimiter = delimiter;
+      return this;
+    }
+
+    /**
+     * The character fields are quoted with. It's doubled where it appears in a
+     * quoted field.
+     * <p>
+     * Defaults to '"'
+     * </p>
+     *
+     * @param quote quote character
+     * @return reference to current {@code Builder}
+     */
+    public Builder quote(char quote) {
+      this.quote = quote;
+      return this;
+    }
+
+    /**
+     * Which fields to quote.
+     * <p>
+     * Defaults to {@link Quoting#MINIMAL}
+     * </p>
+     *
+     * @param quoting which fields to quote
+     * @return reference to current {@code Builder}
+     */
+    public Builder quoting(Quoting quoting) {
+      this.quoting = quoting;
+      return this;
+    }
+
+    /**
+     * <p>
+     * Defaults to "\r\n"
+     * </p>
+     *
+     * @param lineSeparator written after each row
+     * @return reference to current {@code Builder}
+     */
+    public Builder lineSeparator(String lineSeparator) {
+      this.lineSeparator = lineSeparator;
+      return this;
+    }
+
+    /**
+     * Write numbers, dates and booleans the way Excel shows them, using each cell's
+     * number format. Otherwise they're written as they're stored: numbers in full
+     * precision, dates as serial numbers and booleans as 1 or 0. Either way, errors
+     * are written as their code, like {@code #DIV/0!}, and formulas as their cached
+     * result.
+     * <p>
+     * Defaults to true
+     * </p>
+     *
+     * @param formatted whether to format values
+     * @return reference to current {@code Builder}
+     */
+    public Builder formatted(boolean formatted) {
+      this.formatted = formatted;
+      return this;
+    }
+
+    /**
+     * The number of fields to write for each row. Shorter rows are filled out with
+     * empty fields and longer ones are cut off, which some bulk loaders need. If 0,
+     * each row has as many fields as it has columns up to its last value.
+     * <p>
+     * Defaults to 0
+     * </p>
+     *
+     * @param columns number of fields per row
+     * @return reference to current {@code Builder}
+     */
+    public Builder columns(int columns) {
+      this.columns = columns;
+      return this;
+    }
+
+    /**
+     * Leave out rows that have no values, rather than writing an empty line for them.
+     * That includes rows that are only in the sheet for their formatting, and rows whose
+     * values are all past {@link #columns(int)}. When they're kept, line numbers match the
+     * sheet's row numbers.
+     * <p>
+     * Defaults to false
+     * </p>
+     *
+     * @param skipEmptyRows whether to leave out empty rows
+     * @return reference to current {@code Builder}
+     */
+    public Builder skipEmptyRows(boolean skipEmptyRows) {
+      this.skipEmptyRows = skipEmptyRows;
+      return this;
+    }
+
+    /**
+     * The size of the buffer used when exporting to an {@link OutputStream}.
+     * <p>
+     * Defaults to 65536
+     * </p>
+     *
+     * @param bufferSize buffer size in bytes
+     * @return reference to current {@code Builder}
+     */
+    public Builder bufferSize(int bufferSize) {
+      this.bufferSize = bufferSize;
+      return this;
+    }
+
+    /**
+     * Writes a sheet to a stream as UTF-8. The stream is flushed but left open.
+     *
+     * @param sheet a sheet of a workbook opened by {@link StreamingReader}, that hasn't been read from
+     * @param os    output to write to
+     * @throws IOException if the output couldn't be written to
+     * @throws NotSupportedException if the sheet wasn't opened by {@link StreamingReader}
+     * @throws com.monitorjbl.xlsx.exceptions.ReadException if the sheet has already been read from
+     */
+    public void export(Sheet sheet, OutputStream os) throws IOException {
+      Writer writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), bufferSize);
+      export(sheet, writer);
+    }
+
+    /**
+     * Writes a sheet out. The writer is flushed but left open. It isn't buffered any
+     * further, so wrap it in a {@link BufferedWriter} if it isn't already.
+     *
+     * @param sheet  a sheet of a workbook opened by {@link StreamingReader}, that hasn't been read from
+     * @param writer output to write to
+     * @throws IOException if the output couldn't be written to
+     * @throws NotSupportedException if the sheet wasn't opened by {@link StreamingReader}
+     * @throws com.monitorjbl.xlsx.exceptions.ReadException if the sheet has already been read from
+     */
+    public void export(Sheet sheet, Writer writer) throws IOException {
+      if(!(sheet instanceof StreamingSheet)) {
+        throw new NotSupportedException("Only sheets opened by StreamingReader can be exported");
+      }
+      ((StreamingSheet) sheet).readValues(formatted, new CsvSink(this, writer));
+      writer.flush();
+    }
+  }
+
+  private static class CsvSink implements ValueSink {
+    private final char delimiter;
+    private final char quote;
+    private final Quoting quoting;
+    private final String lineSeparator;
+    private final int columns;
+    private final boolean skipEmptyRows;
+    private final Writer writer;
+    private int nextRow;
+    private int nextColumn;
+    /**
+     * Whether anything has been written for the current row, which with skipEmptyRows is
+     * only started by its first value
+     */
+    private boolean rowWritten;
+
+    CsvSink(Builder builder, Writer writer) {
+      this.delimiter = builder.delimiter;
+      this.quote = builder.quote;
+      this.quoting = builder.quoting;
+      this.lineSeparator = builder.lineSeparator;
+      this.columns = builder.columns;
+      this.skipEmptyRows = builder.skipEmptyRows;
+      this.writer = writer;
+    }
+
+    @Override
+    public void startRow(int rowIndex) throws IOException {
+      if(!skipEmptyRows) {
+        for(; nextRow < rowIndex; nextRow++) {
+          fillTo(columns);
+          writer.write(lineSeparator);
+          nextColumn = 0;
+        }
+      }
+      nextRow = rowIndex + 1;
+      nextColumn = 0;
+      rowWritten = false;
+    }
+
+    @Override
+    public void value(int columnIndex, String value) throws IOException {
+      if(columns > 0 && columnIndex >= columns) {
+        return;
+      }
+      rowWritten = true;
+      //columns are normally in order, but a value is never dropped if they aren't
+      fillTo(Math.max(columnIndex, nextColumn));
+      if(nextColumn > 0) {
+        writer.write(delimiter);
+      }
+      writeField(value);
+      nextColumn++;
+    }
+
+    @Override
+    public void endRow() throws IOException {
+      if(skipEmptyRows && !rowWritten) {
+        return;
+      }
+      fillTo(columns);
+      writer.write(lineSeparator);
+    }
+
+    /**
+     * Writes empty fields up to a column.
+     */
+    private void fillTo(int column) throws IOException {
+      for(; nextColumn < column; nextColumn++) {
+        if(nextColumn > 0) {
+          writer.write(delimiter);
+        }
+      }
+    }
+
+    private void writeField(String value) throws IOException {
+      if(quoting == Quoting.NONE || (quoting == Quoting.MINIMAL && !needsQuotes(value))) {
+        writer.write(value);
+        return;
+      }
+      writer.write(quote);
+      int from = 0;
+      for(int i = value.indexOf(quote); i >= 0; i = value.indexOf(quote, i + 1)) {
+        writer.write(value, from, i + 1 - from);
+        writer.write(quote);
+        from = i + 1;
+      }
+      writer.write(value, from, value.length() - from);
+      writer.write(quote);
+    }
+
+    private boolean needsQuotes(String value) {
+      for(int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if(c == delimiter || c == quote || c == '\n' || c == '\r') {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
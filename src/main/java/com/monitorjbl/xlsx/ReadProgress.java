@@ -0,0 +1,38 @@
+package com.monitorjbl.xlsx;
+
+/**
+ * Told how far through each sheet the reader has got, for showing a progress bar or
+ * an estimate of the time left on long imports, and for noticing a read that has
+ * stopped making progress.
+ * <p>
+ * The row count in a sheet's dimension is often missing or wrong, so the position is
+ * also given in bytes of the sheet's entry in the package. Calls are made on the thread
+ * reading the sheet, as rows are parsed, no more often than the configured interval
+ * plus once more when the end of the sheet is reached.
+ * </p>
+ *
+ * @see StreamingReader.Builder#progress(ReadProgress)
+ */
+@FunctionalInterface
+public interface ReadProgress {
+  /**
+   * Doesn't report anything, and lets the reader skip keeping track.
+   */
+  ReadProgress NONE = (sheetName, compressedBytesRead, compressedSize, rowsRead, estimatedRows) -> {
+  };
+
+  /**
+   * @param sheetName           name of the sheet
+   * @param compressedBytesRead how much of the sheet's entry in the package has been read, or -1 if
+   *                            that isn't known. It's counted as the entry is read straight off a
+   *                            stream in forward-only mode, and otherwise worked out from how much XML
+   *                            has been read and the entry's compression ratio. It equals the size at
+   *                            the end of the sheet
+   * @param compressedSize      size of the sheet's entry in the package, or -1 if it isn't known
+   * @param rowsRead            rows parsed so far, which can be up to the row cache size ahead of the
+   *                            rows handed out
+   * @param estimatedRows       number of rows according to the sheet's dimension, or -1 if it doesn't
+   *                            declare one
+   */
+  void sheetProgress(String sheetName, long compressedBytesRead, long compressedSize, int rowsRead, int estimatedRows);
+}
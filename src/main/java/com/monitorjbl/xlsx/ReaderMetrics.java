@@ -0,0 +1,70 @@
+package com.monitorjbl.xlsx;
+
+/**
+ * Receives counters and timings from a workbook as it's read, for forwarding to a
+ * metrics library. Every method does nothing by default, so implementations only
+ * need to override what they're interested in.
+ * <p>
+ * Methods are called on whichever thread is reading the workbook, and should return
+ * quickly. Sizes are in bytes and times in nanoseconds; a size that isn't known is
+ * reported as -1.
+ * </p>
+ *
+ * @see StreamingReader.Builder#metrics(ReaderMetrics)
+ */
+public interface ReaderMetrics {
+  /**
+   * Does nothing, and lets the reader skip gathering any of the figures.
+   */
+  ReaderMetrics NONE = new ReaderMetrics() {
+  };
+
+  /**
+   * Called once per workbook, when the first row of any sheet has been parsed.
+   *
+   * @param sheetName name of the sheet the row is in
+   * @param nanos     time since the workbook started opening
+   */
+  default void firstRow(String sheetName, long nanos) {
+  }
+
+  /**
+   * Called each time a batch of rows, up to the row cache size, has been parsed.
+   *
+   * @param sheetName name of the sheet
+   * @param rows      rows parsed
+   * @param cells     cells in those rows
+   * @param nanos     time spent parsing them, including reading and inflating the data
+   */
+  default void rowsParsed(String sheetName, int rows, int cells, long nanos) {
+  }
+
+  /**
+   * Called once per sheet, when its data has been read to the end or the workbook is closed.
+   *
+   * @param sheetName       name of the sheet
+   * @param compressedBytes size of the sheet's entry in the package
+   * @param inflatedBytes   XML read from the entry
+   */
+  default void sheetRead(String sheetName, long compressedBytes, long inflatedBytes) {
+  }
+
+  /**
+   * Called when the workbook is closed, if the shared strings were kept by the reader
+   * rather than by POI.
+   *
+   * @param cacheHits   lookups answered by a cache
+   * @param cacheMisses lookups the cache couldn't answer
+   * @param diskReads   lookups that went to a file
+   */
+  default void sharedStringLookups(long cacheHits, long cacheMisses, long diskReads) {
+  }
+
+  /**
+   * Called for each temp file the reader wrote, with its final size, just before it's deleted.
+   *
+   * @param bytes size of the file
+   */
+  default void tempFileWritten(long bytes) {
+  }
+}
@@ -0,0 +1,615 @@
+package com.monitorjbl.xlsx;
+
+import com.monitorjbl.xlsx.exceptions.ReadException;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Maps the rows of a sheet to objects, matching the names in the sheet's first row to
+ * the properties of a class:
+ *
+ * <pre>
+ * RowBinder&lt;Trade&gt; binder = RowBinder.builder(Trade.class)
+ *     .column("Trade Date", "date")
+ *     .build();
+ * try(Stream&lt;Trade&gt; trades = binder.stream(workbook.getSheetAt(0))) {
+ *   ...
+ * }
+ * </pre>
+ * <p>
+ * Classes with a no-argument constructor are filled in through their setters, or
+ * through their fields where there's no setter. Classes without one, like records,
+ * are created through the constructor whose parameter names were compiled in, which
+ * records always have and other classes have when compiled with {@code -parameters}.
+ * Everything that can be is looked up and compiled when the binder is built, and
+ * names are matched to columns once per sheet, so binding a row costs about as much
+ * as calling the setters by hand.
+ * </p>
+ * <p>
+ * Headers match a property when they're the same ignoring case, spaces and
+ * punctuation, so {@code "Trade Date"} and {@code "trade_date"} both go to
+ * {@code tradeDate}. Headers that don't match anything are ignored, and properties
+ * without a column keep their default. Properties can be {@code String}, {@code int},
+ * {@code long}, {@code double}, {@code float}, {@code boolean} or their wrappers,
+ * {@code BigDecimal}, {@code LocalDate}, {@code LocalDateTime} or an enum. Numbers,
+ * dates and booleans are read with the getters for their type rather than through
+ * their formatted text, and text is only parsed when a cell holds a string. Empty
+ * cells leave the property at its default.
+ * </p>
+ * <p>
+ * Binders are thread-safe and can be reused for any number of sheets.
+ * </p>
+ *
+ * @param <T> the class rows are mapped to
+ */
+public class RowBinder<T> {
+  private static final Logger log = LoggerFactory.getLogger(RowBinder.class);
+
+  private final Class<T> type;
+  private final Map<String, Property> properties;
+  private final Supplier<Object> constructor;
+  private final MethodHandle canonicalConstructor;
+  private final Object[] constructorDefaults;
+
+  private RowBinder(Builder<T> builder) {
+    this.type = builder.type;
+    Map<String, Property> found = new LinkedHashMap<>();
+    Constructor<?> noArgs = noArgsConstructor(type);
+    if(noArgs != null) {
+      this.constructor = instantiator(noArgs);
+      this.canonicalConstructor = null;
+      this.constructorDefaults = null;
+      findSetters(found);
+    } else {
+      Constructor<?> ctor = namedConstructor(type);
+      this.constructor = null;
+      this.canonicalConstructor = spreader(ctor);
+      Parameter[] parameters = ctor.getParameters();
+      this.constructorDefaults = new Object[parameters.length];
+      for(int i = 0; i < parameters.length; i++) {
+        Converter converter = Converter.of(parameters[i].getType());
+        if(converter != null) {
+          found.putIfAbsent(normalize(parameters[i].getName()), new Property(parameters[i].getName(), converter, null, i));
+        }
+        constructorDefaults[i] = defaultValue(parameters[i].getType());
+      }
+    }
+
+    //explicit columns take the place of whatever their header would match on its own
+    Map<String, Property> properties = new HashMap<>();
+    for(Property property : found.values()) {
+      properties.put(normalize(property.name), property);
+    }
+    for(Map.Entry<String, String> column : builder.columns.entrySet()) {
+      Property property = found.get(normalize(column.getValue()));
+      if(property == null) {
+        throw new IllegalArgumentException("[" + type.getName() + "] has no property [" + column.getValue() + "] of a supported type");
+      }
+      properties.put(normalize(column.getKey()), property);
+    }
+    this.properties = properties;
+  }
+
+  public static <T> Builder<T> builder(Class<T> type) {
+    return new Builder<>(type);
+  }
+
+  /**
+   * Reads the sheet's first row as the header, and maps each of the following rows as
+   * it's iterated.
+   *
+   * @param sheet sheet to read
+   * @return one object per row after the header
+   * @throws ReadException if a cell's value can't be converted to its property's type
+   */
+  public Iterator<T> iterator(Sheet sheet) {
+    Iterator<Row> rows = sheet.iterator();
+    if(!rows.hasNext()) {
+      return new BoundIterator(rows, new int[0], new Property[0]);
+    }
+
+    List<Integer> columns = new ArrayList<>();
+    List<Property> bound = new ArrayList<>();
+    for(Cell cell : rows.next()) {
+      if(cell.getCellType() != CellType.STRING) {
+        continue;
+      }
+      Property property = properties.get(normalize(cell.getStringCellValue()));
+      if(property != null && !bound.contains(property)) {
+        columns.add(cell.getColumnIndex());
+        bound.add(property);
+      }
+    }
+    int[] indexes = new int[columns.size()];
+    for(int i = 0; i < indexes.length; i++) {
+      indexes[i] = columns.get(i);
+    }
+    return new BoundIterator(rows, indexes, bound.toArray(new Property[0]));
+  }
+
+  /**
+   * Same as {@link #iterator(Sheet)}, as a sequential stream.
+   */
+  public Stream<T> stream(Sheet sheet) {
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(sheet), Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
+  private class BoundIterator implements Iterator<T> {
+    private final Iterator<Row> rows;
+    private final int[] columns;
+    private final Property[] bound;
+
+    BoundIterator(Iterator<Row> rows, int[] columns, Property[] bound) {
+      this.rows = rows;
+      this.columns = columns;
+      this.bound = bound;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return rows.hasNext();
+    }
+
+    @Override
+    public T next() {
+      if(!rows.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Row row = rows.next();
+      return constructor != null ? setProperties(row) : construct(row);
+    }
+
+    private T setProperties(Row row) {
+      Object target = constructor.get();
+      for(int i = 0; i < columns.length; i++) {
+        Cell cell = row.getCell(columns[i]);
+        if(cell != null) {
+          Object value = bound[i].convert(cell);
+          if(value != null) {
+            bound[i].setter.accept(target, value);
+          }
+        }
+      }
+      return type.cast(target);
+    }
+
+    private T construct(Row row) {
+      Object[] args = constructorDefaults.clone();
+      for(int i = 0; i < columns.length; i++) {
+        Cell cell = row.getCell(columns[i]);
+        if(cell != null) {
+          Object value = bound[i].convert(cell);
+          if(value != null) {
+            args[bound[i].parameter] = value;
+          }
+        }
+      }
+      try {
+        return type.cast(canonicalConstructor.invokeExact(args));
+      } catch(RuntimeException | Error e) {
+        throw e;
+      } catch(Throwable e) {
+        throw new ReadException("Unable to create [" + type.getName() + "] for row " + (row.getRowNum() + 1), new Exception(e));
+      }
+    }
+  }
+
+  private void findSetters(Map<String, Property> found) {
+    for(Method method : type.getMethods()) {
+      String name = method.getName();
+      if(name.length() > 3 && name.startsWith("set") && method.getParameterCount() == 1 && !Modifier.isStatic(method.getModifiers())) {
+        Converter converter = Converter.of(method.getParameterTypes()[0]);
+        if(converter != null) {
+          String property = Character.toLowerCase(name.charAt(3)) + name.substring(4);
+          found.putIfAbsent(normalize(property), new Property(property, converter, setter(method), -1));
+        }
+      }
+    }
+    for(Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+      for(Field field : c.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        Converter converter = Converter.of(field.getType());
+        if(converter != null && !Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers) && !field.isSynthetic()) {
+          found.computeIfAbsent(normalize(field.getName()), k -> new Property(field.getName(), converter, setter(field), -1));
+        }
+      }
+    }
+  }
+
+  /**
+   * Lowercases a name and drops anything that isn't a letter or digit.
+   */
+  static String normalize(String name) {
+    StringBuilder sb = new StringBuilder(name.length());
+    for(int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if(Character.isLetterOrDigit(c)) {
+        sb.append(Character.toLowerCase(c));
+      }
+    }
+    return sb.toString();
+  }
+
+  private static Constructor<?> noArgsConstructor(Class<?> type) {
+    try {
+      return type.getDeclaredConstructor();
+    } catch(NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  private static Constructor<?> namedConstructor(Class<?> type) {
+    Constructor<?> found = null;
+    for(Constructor<?> ctor : type.getDeclaredConstructors()) {
+      Parameter[] parameters = ctor.getParameters();
+      if(parameters.length > 0 && parameters[0].isNamePresent() && (found == null || parameters.length > found.getParameterCount())) {
+        found = ctor;
+      }
+    }
+    if(found == null) {
+      throw new IllegalArgumentException("[" + type.getName() + "] needs a no-argument constructor, or a constructor "
+          + "with parameter names compiled in");
+    }
+    return found;
+  }
+
+  /**
+   * Lambdas can be spun for members of public classes the library's class loader can
+   * see. Anything else goes through a plain method handle.
+   */
+  private static boolean canSpinLambda(Class<?> declaringClass) {
+    if(!Modifier.isPublic(declaringClass.getModifiers())) {
+      return false;
+    }
+    try {
+      return Class.forName(declaringClass.getName(), false, RowBinder.class.getClassLoader()) == declaringClass;
+    } catch(ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Supplier<Object> instantiator(Constructor<?> ctor) {
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    try {
+      if(Modifier.isPublic(ctor.getModifiers()) && canSpinLambda(ctor.getDeclaringClass())) {
+        MethodHandle handle = lookup.unreflectConstructor(ctor);
+        CallSite site = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+            MethodType.methodType(Object.class), handle, MethodType.methodType(ctor.getDeclaringClass()));
+        return (Supplier<Object>) site.getTarget().invokeExact();
+      }
+    } catch(Throwable e) {
+      log.debug("Unable to compile a constructor lambda for [" + ctor.getDeclaringClass().getName() + "]", e);
+    }
+
+    MethodHandle handle = accessible(ctor, lookup).asType(MethodType.methodType(Object.class));
+    return () -> {
+      try {
+        return handle.invokeExact();
+      } catch(RuntimeException | Error e) {
+        throw e;
+      } catch(Throwable e) {
+        throw new ReadException("Unable to create [" + ctor.getDeclaringClass().getName() + "]", new Exception(e));
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private static BiConsumer<Object, Object> setter(Method method) {
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    try {
+      if(canSpinLambda(method.getDeclaringClass())) {
+        MethodHandle handle = lookup.unreflect(method);
+        CallSite site = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class),
+            MethodType.methodType(void.class, Object.class, Object.class), handle,
+            MethodType.methodType(void.class, method.getDeclaringClass(), MethodType.methodType(method.getParameterTypes()[0]).wrap().returnType()));
+        return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+      }
+    } catch(Throwable e) {
+      log.debug("Unable to compile a setter lambda for [" + method + "]", e);
+    }
+
+    try {
+      method.setAccessible(true);
+      return invoker(lookup.unreflect(method), method.toString());
+    } catch(IllegalAccessException | RuntimeException e) {
+      throw new IllegalArgumentException("Unable to access [" + method + "]", e);
+    }
+  }
+
+  private static BiConsumer<Object, Object> setter(Field field) {
+    try {
+      field.setAccessible(true);
+      return invoker(MethodHandles.lookup().unreflectSetter(field), field.toString());
+    } catch(IllegalAccessException | RuntimeException e) {
+      throw new IllegalArgumentException("Unable to access [" + field + "]", e);
+    }
+  }
+
+  private static BiConsumer<Object, Object> invoker(MethodHandle handle, String name) {
+    MethodHandle generic = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+    return (target, value) -> {
+      try {
+        generic.invokeExact(target, value);
+      } catch(RuntimeException | Error e) {
+        throw e;
+      } catch(Throwable e) {
+        throw new ReadException("Unable to set [" + name + "]", new Exception(e));
+      }
+    };
+  }
+
+  private static MethodHandle spreader(Constructor<?> ctor) {
+    return accessible(ctor, MethodHandles.lookup())
+        .asSpreader(Object[].class, ctor.getParameterCount())
+        .asType(MethodType.methodType(Object.class, Object[].class));
+  }
+
+  private static MethodHandle accessible(Constructor<?> ctor, MethodHandles.Lookup lookup) {
+    try {
+      ctor.setAccessible(true);
+      return lookup.unreflectConstructor(ctor);
+    } catch(IllegalAccessException | RuntimeException e) {
+      throw new IllegalArgumentException("Unable to access [" + ctor + "]", e);
+    }
+  }
+
+  private static Object defaultValue(Class<?> type) {
+    if(type == int.class) {
+      return 0;
+    } else if(type == long.class) {
+      return 0L;
+    } else if(type == double.class) {
+      return 0.0;
+    } else if(type == float.class) {
+      return 0.0f;
+    } else if(type == boolean.class) {
+      return false;
+    }
+    return null;
+  }
+
+  private static final class Property {
+    final String name;
+    final Converter converter;
+    final BiConsumer<Object, Object> setter;
+    final int parameter;
+
+    Property(String name, Converter converter, BiConsumer<Object, Object> setter, int parameter) {
+      this.name = name;
+      this.converter = converter;
+      this.setter = setter;
+      this.parameter = parameter;
+    }
+
+    Object convert(Cell cell) {
+      try {
+        return converter.convert(cell);
+      } catch(RuntimeException e) {
+        throw new ReadException("Unable to read cell [" + new CellReference(cell).formatAsString() + "] as [" + name + "]", e);
+      }
+    }
+  }
+
+  /**
+   * Turns a cell's value into one type, or null for empty cells.
+   */
+  private abstract static class Converter {
+    static Converter of(Class<?> type) {
+      if(type == String.class) {
+        return new Converter() {
+          @Override
+          Object convert(Cell cell, CellType cellType) {
+            return cellType == CellType.BOOLEAN ? String.valueOf(booleanValue(cell)) : cell.getStringCellValue();
+          }
+        };
+      } else if(type == int.class || type == Integer.class) {
+        return new Converter() {
+          @Override
+          Object convert(Cell cell, CellType cellType) {
+            if(cellType == CellType.NUMERIC) {
+              double value = cell.getNumericCellValue();
+              if(value != (int) value) {
+                throw new IllegalStateException(value + " isn't an int");
+              }
+              return (int) value;
+            }
+            return Integer.parseInt(text(cell, cellType));
+          }
+        };
+      } else if(type == long.class || type == Long.class) {
+        return new Converter() {
+          @Override
+          Object convert(Cell cell, CellType cellType) {
+            if(cellType == CellType.NUMERIC) {
+              double value = cell.getNumericCellValue();
+              if(value != (long) value) {
+                throw new IllegalStateException(value + " isn't a long");
+              }
+              return (long) value;
+            }
+            return Long.parseLong(text(cell, cellType));
+          }
+        };
+      } else if(type == double.class || type == Double.class) {
+        return new Converter() {
+          @Override
+          Object convert(Cell cell, CellType cellType) {
+            return cellType == CellType.NUMERIC ? cell.getNumericCellValue() : Double.parseDouble(text(cell, cellType));
+          }
+        };
+      } else if(type == float.class || type == Float.class) {
+        return new Converter() {
+          @Override
+          Object convert(Cell cell, CellType cellType) {
+            return cellType == CellType.NUMERIC ? (float) cell.getNumericCellValue() : Float.parseFloat(text(cell, cellType));
+          }
+        };
+      } else if(type == BigDecimal.class) {
+        return new Converter() {
+          @Override
+          Object convert(Cell cell, CellType cellType) {
+            return cellType == CellType.NUMERIC ? BigDecimal.valueOf(cell.getNumericCellValue()) : new BigDecimal(text(cell, cellType));
+          }
+        };
+      } else if(type == boolean.class || type == Boolean.class) {
+        return new Converter() {
+          @Override
+          Object convert(Cell cell, CellType cellType) {
+            if(cellType == CellType.BOOLEAN) {
+              return booleanValue(cell);
+            }
+            String text = text(cell, cellType);
+            if("true".equalsIgnoreCase(text) || "1".equals(text)) {
+              return true;
+            } else if("false".equalsIgnoreCase(text) || "0".equals(text)) {
+              return false;
+            }
+            throw new IllegalStateException("[" + text + "] isn't a boolean");
+          }
+        };
+      } else if(type == LocalDate.class) {
+        return new Converter() {
+          @Override
+          Object convert(Cell cell, CellType cellType) {
+            return cellType == CellType.NUMERIC ? cell.getLocalDateTimeCellValue().toLocalDate() : LocalDate.parse(text(cell, cellType));
+          }
+        };
+      } else if(type == LocalDateTime.class) {
+        return new Converter() {
+          @Override
+          Object convert(Cell cell, CellType cellType) {
+            return cellType == CellType.NUMERIC ? cell.getLocalDateTimeCellValue() : LocalDateTime.parse(text(cell, cellType));
+          }
+        };
+      } else if(type.isEnum()) {
+        Map<String, Object> constants = new HashMap<>();
+        for(Object constant : type.getEnumConstants()) {
+          constants.put(((Enum<?>) constant).name(), constant);
+          constants.putIfAbsent(((Enum<?>) constant).name().toUpperCase(Locale.ROOT), constant);
+        }
+        return new Converter() {
+          @Override
+          Object convert(Cell cell, CellType cellType) {
+            String text = text(cell, cellType);
+            Object constant = constants.get(text);
+            if(constant == null) {
+              constant = constants.get(text.toUpperCase(Locale.ROOT));
+            }
+            if(constant == null) {
+              throw new IllegalStateException("[" + text + "] isn't one of " + constants.keySet());
+            }
+            return constant;
+          }
+        };
+      }
+      return null;
+    }
+
+    /**
+     * @return the value, or null if the cell is empty
+     */
+    Object convert(Cell cell) {
+      CellType cellType = cell.getCellType();
+      if(cellType == CellType.FORMULA) {
+        cellType = cell.getCachedFormulaResultType();
+      }
+      if(cellType == CellType.BLANK || (cellType == CellType.STRING && cell.getStringCellValue().trim().isEmpty())) {
+        return null;
+      }
+      if(cellType == CellType.ERROR) {
+        throw new IllegalStateException("The cell holds an error");
+      }
+      return convert(cell, cellType);
+    }
+
+    /**
+     * @param cellType the cell's type, or the type of its cached result if it's a formula
+     */
+    abstract Object convert(Cell cell, CellType cellType);
+
+    static String text(Cell cell, CellType cellType) {
+      if(cellType != CellType.STRING) {
+        throw new IllegalStateException("Expected text, but the cell is " + cellType);
+      }
+      return cell.getStringCellValue().trim();
+    }
+
+    /**
+     * Formula cells don't support {@link Cell#getBooleanCellValue()}, but their cached
+     * boolean is stored the same way.
+     */
+    static boolean booleanValue(Cell cell) {
+      if(cell.getCellType() == CellType.FORMULA) {
+        String value = cell.getStringCellValue();
+        return "1".equals(value) || "true".equalsIgnoreCase(value);
+      }
+      return cell.getBooleanCellValue();
+    }
+  }
+
+  public static class Builder<T> {
+    private final Class<T> type;
+    private final Map<String, String> columns = new LinkedHashMap<>();
+
+    private Builder(Class<T> type) {
+      this.type = type;
+    }
+
+    /**
+     * Maps a header to a property whose name doesn't match it.
+     *
+     * @param header   the header, as it appears in the sheet
+     * @param property name of the property
+     * @return reference to current {@code Builder}
+     */
+    public Builder<T> column(String header, String property) {
+      columns.put(header, property);
+      return this;
+    }
+
+    /**
+     * Looks up and compiles everything needed to create and fill in the class.
+     *
+     * @return a binder for the class
+     * @throws IllegalArgumentException if the class can't be created, or a mapped property doesn't exist
+     */
+    public RowBinder<T> build() {
+      return new RowBinder<>(this);
+    }
+  }
+}
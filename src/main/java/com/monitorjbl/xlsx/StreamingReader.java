@@ -7,6 +7,7 @@ import com.monitorjbl.xlsx.sst.BufferedStringsTable;
 import com.monitorjbl.xlsx.impl.StreamingSheetReader;
 import com.monitorjbl.xlsx.impl.StreamingWorkbook;
 import com.monitorjbl.xlsx.impl.StreamingWorkbookReader;
+import com.monitorjbl.xlsx.impl.WorkbookMetadata;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
 import org.apache.poi.openxml4j.opc.OPCPackage;
@@ -21,21 +22,21 @@ import org.apache.poi.xssf.model.SharedStringsTable;
 import org.apache.poi.xssf.model.StylesTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLStreamException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.GeneralSecurityException;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
-import static com.monitorjbl.xlsx.XmlUtils.document;
-import static com.monitorjbl.xlsx.XmlUtils.searchForNodeList;
 import static com.monitorjbl.xlsx.impl.TempFileUtil.writeInputStreamToFile;
 
 /**
@@ -92,11 +93,24 @@ public class StreamingReader implements Iterable<Row>, AutoCloseable {
 
   public static class Builder {
     private int rowCacheSize = 10;
-    private int bufferSize = 1024;
+    private int bufferSize = 64 * 1024;
     private int sheetIndex = 0;
     private int sstCacheSizeBytes = -1;
     private String sheetName;
     private String password;
+    private boolean forwardOnly = false;
+    private boolean streamingDecryption = false;
+    private boolean compactSharedStrings = false;
+    private long offHeapSharedStringsBytes = -1;
+    private boolean lazySharedStrings = false;
+    private boolean backgroundSharedStrings = false;
+    private boolean compressSharedStrings = false;
+    private boolean deferSharedStrings = false;
+    private int internCapacity = 0;
+    private ReaderMetrics metrics = ReaderMetrics.NONE;
+    private ReadProgress progress = ReadProgress.NONE;
+    private long progressIntervalMillis = 1000;
+    private File spoolDirectory;
 
     public int getRowCacheSize() {
       return rowCacheSize;
@@ -129,6 +143,104 @@ public class StreamingReader implements Iterable<Row>, AutoCloseable {
       return password;
     }
 
+    /**
+     * @return Whether workbooks opened from an {@code InputStream} are read straight
+     * off the stream instead of being copied to a temp file first
+     */
+    public boolean isForwardOnly() {
+      return forwardOnly;
+    }
+
+    /**
+     * @return Whether password protected workbooks are decrypted to disk instead
+     * of into memory
+     */
+    public boolean isStreamingDecryption() {
+      return streamingDecryption;
+    }
+
+    /**
+     * @return Whether shared strings are kept in memory as packed UTF-8
+     */
+    public boolean isCompactSharedStrings() {
+      return compactSharedStrings;
+    }
+
+    /**
+     * @return The most direct memory to keep shared strings in, or a value less than
+     * 1 to keep them on the heap
+     */
+    public long getOffHeapSharedStringsBytes() {
+      return offHeapSharedStringsBytes;
+    }
+
+    /**
+     * @return Whether shared strings are only indexed when the workbook is opened,
+     * and parsed as they're read
+     */
+    public boolean isLazySharedStrings() {
+      return lazySharedStrings;
+    }
+
+    /**
+     * @return Whether shared strings are loaded on a background thread while sheets
+     * are being read
+     */
+    public boolean isBackgroundSharedStrings() {
+      return backgroundSharedStrings;
+    }
+
+    /**
+     * @return Whether the shared strings cache file is compressed
+     */
+    public boolean isCompressSharedStrings() {
+      return compressSharedStrings;
+    }
+
+    /**
+     * @return Whether string cells only look up their shared string when it's read
+     */
+    public boolean isDeferSharedStrings() {
+      return deferSharedStrings;
+    }
+
+    /**
+     * @return The number of canonical strings kept for repeated values, or 0 if
+     * every cell gets its own
+     */
+    public int getInternCapacity() {
+      return internCapacity;
+    }
+
+    /**
+     * @return The listener that counters and timings are reported to
+     */
+    public ReaderMetrics getMetrics() {
+      return metrics;
+    }
+
+    /**
+     * @return The listener that the position in each sheet is reported to
+     */
+    public ReadProgress getProgress() {
+      return progress;
+    }
+
+    /**
+     * @return The least time between two reports of the position in a sheet
+     */
+    public long getProgressIntervalMillis() {
+      return progressIntervalMillis;
+    }
+
+    /**
+     * @return The directory that input streams are spooled to, or null for the
+     * default temp directory
+     */
+    public File getSpoolDirectory() {
+      return spoolDirectory;
+    }
+
     /**
      * @return The size of the shared string table cache. If less than 0, no
      * cache will be used and the entire table will be loaded into memory.
@@ -155,7 +267,7 @@ public class StreamingReader implements Iterable<Row>, AutoCloseable {
      * The number of bytes to read into memory from the input
      * resource.
      * <p>
-     * Defaults to 1024
+     * Defaults to 65536
      * </p>
      *
      * @param bufferSize buffer size in bytes
@@ -235,6 +347,292 @@ public class StreamingReader implements Iterable<Row>, AutoCloseable {
       return this;
     }
 
+    /**
+     * Keep the shared strings table in memory as UTF-8 packed into large byte arrays,
+     * instead of as POI's per-string objects. This takes a fraction of the heap, and
+     * unlike {@link #sstCacheSizeBytes(int)} never goes to disk, at the cost of
+     * decoding each string whenever it's read.
+     * <p>
+     * When both options are set, {@link #sstCacheSizeBytes(int)} sets the size of a
+     * cache of decoded strings instead.
+     * </p>
+     * <p>
+     * Defaults to false
+     * </p>
+     *
+     * @param compactSharedStrings whether to pack shared strings into byte arrays
+     * @return reference to current {@code Builder}
+     */
+    public Builder compactSharedStrings(boolean compactSharedStrings) {
+      this.compactSharedStrings = compactSharedStrings;
+      return this;
+    }
+
+    /**
+     * Keep the shared strings table outside of the Java heap, as UTF-8 in direct
+     * memory, using up to this many bytes. Strings that don't fit in the budget are
+     * written to a temp file the same way as with {@link #sstCacheSizeBytes(int)},
+     * so very large tables neither fill the heap nor go entirely to disk.
+     * <p>
+     * The memory is released when the workbook is closed. It counts towards the JVM's
+     * {@code -XX:MaxDirectMemorySize} limit, and running into that limit is treated
+     * the same as using up the budget.
+     * </p>
+     * <p>
+     * When set, {@link #sstCacheSizeBytes(int)} sets the size of the cache of strings
+     * read back from the temp file, and {@link #compactSharedStrings(boolean)} is
+     * ignored. {@link #lazySharedStrings(boolean)} takes precedence over this option.
+     * </p>
+     * <p>
+     * Defaults to -1 (disabled)
+     * </p>
+     *
+     * @param offHeapSharedStringsBytes most direct memory to keep shared strings in
+     * @return reference to current {@code Builder}
+     */
+    public Builder offHeapSharedStrings(long offHeapSharedStringsBytes) {
+      this.offHeapSharedStringsBytes = offHeapSharedStringsBytes;
+      return this;
+    }
+
+    /**
+     * Only index the shared strings table when the workbook is opened, and parse each
+     * string the first time it's read. The XML is copied to a temp file and scanned
+     * for where each string starts, which is much quicker than parsing all of it, so
+     * the first rows of a workbook with a very large table are available sooner.
+     * <p>
+     * Reading a string this way is slower than from the other kinds of storage, so
+     * set {@link #sstCacheSizeBytes(int)} to keep a cache of the ones already parsed.
+     * This option takes precedence over {@link #offHeapSharedStrings(long)} and
+     * {@link #compactSharedStrings(boolean)}.
+     * </p>
+     * <p>
+     * Defaults to false
+     * </p>
+     *
+     * @param lazySharedStrings whether to parse shared strings as they're read
+     * @return reference to current {@code Builder}
+     */
+    public Builder lazySharedStrings(boolean lazySharedStrings) {
+      this.lazySharedStrings = lazySharedStrings;
+      return this;
+    }
+
+    /**
+     * Load the shared strings table on a background thread, so that sheets can be read
+     * as soon as the workbook is opened and the two are inflated and parsed on separate
+     * cores. String cells are looked up when their value is read rather than when the row
+     * is, and only wait for the table if the string hasn't been loaded yet.
+     * <p>
+     * The strings are kept wherever the other shared strings options say, or packed into
+     * byte arrays as with {@link #compactSharedStrings(boolean)} if none of them are set.
+     * This option has no effect with {@link #lazySharedStrings(boolean)}, which is quick
+     * to load anyway, or when reading a stream with {@link #forwardOnly(boolean)}, where
+     * the table has to be read off the stream before the sheets can be.
+     * </p>
+     * <p>
+     * Defaults to false
+     * </p>
+     *
+     * @param backgroundSharedStrings whether to load shared strings on a background thread
+     * @return reference to current {@code Builder}
+     */
+    public Builder backgroundSharedStrings(boolean backgroundSharedStrings) {
+      this.backgroundSharedStrings = backgroundSharedStrings;
+      return this;
+    }
+
+    /**
+     * Compress the temp file that {@link #sstCacheSizeBytes(int)} keeps shared strings
+     * in. Strings are written in blocks of about 64KB that are deflated separately, and
+     * {@link #sstCacheSizeBytes(int)} becomes the size of a cache of inflated blocks,
+     * so that reading strings from the same block only inflates it once.
+     * <p>
+     * Text usually compresses well, so the file can be several times smaller than the
+     * strings it holds, at the cost of some CPU time when it's written and read.
+     * </p>
+     * <p>
+     * Defaults to false
+     * </p>
+     *
+     * @param compressSharedStrings whether to compress the shared strings cache file
+     * @return reference to current {@code Builder}
+     */
+    public Builder compressSharedStrings(boolean compressSharedStrings) {
+      this.compressSharedStrings = compressSharedStrings;
+      return this;
+    }
+
+    /**
+     * Only look up the shared string of a string cell the first time its value is
+     * read, rather than as soon as its row is parsed. Cells that are never read then
+     * never touch the shared strings table, which saves reading it back from disk
+     * with {@link #sstCacheSizeBytes(int)}.
+     * <p>
+     * The table is closed along with the workbook, so the rows still held by the
+     * reader have their strings looked up then, but any rows kept from before that
+     * need their string values read before the workbook is closed. String cells are
+     * always looked up this way with {@link #backgroundSharedStrings(boolean)}.
+     * </p>
+     * <p>
+     * Defaults to false
+     * </p>
+     *
+     * @param deferSharedStrings whether to look up shared strings when they're read
+     * @return reference to current {@code Builder}
+     */
+    public Builder deferSharedStrings(boolean deferSharedStrings) {
+      this.deferSharedStrings = deferSharedStrings;
+      return this;
+    }
+
+    /**
+     * Make cells with the same value return the same {@code String} instance. Every
+     * cell pointing at the same shared string gets the same instance, as does every
+     * inline string of up to 64 characters with the same text, so a column with a
+     * handful of distinct values over millions of rows doesn't produce millions of
+     * copies of them.
+     * <p>
+     * Up to this many canonical shared strings are kept, and as many inline ones. When
+     * two values compete for the same slot, the older one is dropped, so values that
+     * repeat far apart can still be separate instances.
+     * </p>
+     * <p>
+     * Defaults to 0 (disabled)
+     * </p>
+     *
+     * @param internCapacity number of canonical strings to keep of each kind
+     * @return reference to current {@code Builder}
+     */
+    public Builder internStrings(int internCapacity) {
+      this.internCapacity = internCapacity;
+      return this;
+    }
+
+    /**
+     * Report counters and timings to a listener as the workbook is read: bytes read
+     * for each sheet, rows and cells parsed and how long each batch of them took, the
+     * time until the first row was available, shared string cache hits, misses and
+     * disk reads, and the size of each temp file written.
+     * <p>
+     * Nothing is measured unless a listener is set.
+     * </p>
+     * <p>
+     * Defaults to {@link ReaderMetrics#NONE}
+     * </p>
+     *
+     * @param metrics listener to report to
+     * @return reference to current {@code Builder}
+     */
+    public Builder metrics(ReaderMetrics metrics) {
+      this.metrics = metrics == null ? ReaderMetrics.NONE : metrics;
+      return this;
+    }
+
+    /**
+     * Report how far through each sheet the reader has got, in rows and in bytes of the
+     * sheet's entry in the package, so that long reads can show their progress even
+     * when the sheet doesn't declare how many rows it has.
+     * <p>
+     * Reports are made at most once per {@link #progressInterval(long)}, and once more
+     * at the end of each sheet.
+     * </p>
+     * <p>
+     * Defaults to {@link ReadProgress#NONE}
+     * </p>
+     *
+     * @param progress listener to report to
+     * @return reference to current {@code Builder}
+     */
+    public Builder progress(ReadProgress progress) {
+      this.progress = progress == null ? ReadProgress.NONE : progress;
+      return this;
+    }
+
+    /**
+     * The least time between two reports to the {@link #progress(ReadProgress)}
+     * listener. The clock is only checked once per batch of rows parsed, so this
+     * costs next to nothing however long the sheet is.
+     * <p>
+     * Defaults to 1000
+     * </p>
+     *
+     * @param progressIntervalMillis time between reports, in milliseconds
+     * @return reference to current {@code Builder}
+     */
+    public Builder progressInterval(long progressIntervalMillis) {
+      this.progressIntervalMillis = progressIntervalMillis;
+      return this;
+    }
+
+    /**
+     * Read workbooks opened with {@link #open(InputStream)} straight off the stream,
+     * entry by entry, rather than copying the whole stream to a temp file first. The
+     * first rows become available as soon as the stream reaches them.
+     * <p>
+     * The workbook, styles and shared strings must be read before any rows can be. Excel
+     * usually writes the sheets before the styles and shared strings, in which case
+     * the sheets that come before them are spilled to temp files. Sheets that come after
+     * them are not written to disk as long as they are read in the order they appear in
+     * the file. Reading them out of order is supported, but spills the sheets that have
+     * to be skipped over.
+     * </p>
+     * <p>
+     * Password protected workbooks are always copied, since the encrypted container
+     * has to be read out of order. With {@link #streamingDecryption(boolean)} the
+     * package inside it is then decrypted and read as a stream.
+     * </p>
+     * <p>
+     * Defaults to false
+     * </p>
+     *
+     * @param forwardOnly whether to read the stream without a temp file copy
+     * @return reference to current {@code Builder}
+     */
+    public Builder forwardOnly(boolean forwardOnly) {
+      this.forwardOnly = forwardOnly;
+      return this;
+    }
+
+    /**
+     * Decrypt password protected workbooks chunk by chunk into a temp file, rather
+     * than into memory. Without this option the entire decrypted package is held in
+     * memory, which for large workbooks defeats the purpose of streaming them. In
+     * {@link #forwardOnly(boolean)} mode the decrypted data is read as a stream and
+     * is not written out at all, apart from any sheets that get spilled.
+     * <p>
+     * <strong>Note</strong> that the temp file holds the decrypted contents of the
+     * workbook until the workbook is closed.
+     * </p>
+     * <p>
+     * Defaults to false
+     * </p>
+     *
+     * @param streamingDecryption whether to decrypt to disk instead of memory
+     * @return reference to current {@code Builder}
+     */
+    public Builder streamingDecryption(boolean streamingDecryption) {
+      this.streamingDecryption = streamingDecryption;
+      return this;
+    }
+
+    /**
+     * The directory that workbooks opened with {@link #open(InputStream)} are
+     * copied to, along with any sheets spilled in {@link #forwardOnly(boolean)}
+     * mode. Pointing this at a fast local disk or tmpfs mount speeds up opening
+     * large streams.
+     * <p>
+     * Defaults to the system temp directory ({@code java.io.tmpdir})
+     * </p>
+     *
+     * @param spoolDirectory directory to write temp files to
+     * @return reference to current {@code Builder}
+     */
+    public Builder spoolDirectory(File spoolDirectory) {
+      this.spoolDirectory = spoolDirectory;
+      return this;
+    }
+
     /**
      * Reads a given {@code InputStream} and returns a new
      * instance of {@code Workbook}. Due to Apache POI
@@ -267,6 +665,63 @@ public class StreamingReader implements Iterable<Row>, AutoCloseable {
       return new StreamingWorkbook(workbook);
     }
 
+    /**
+     * Reads a given {@code Path} and returns a new instance
+     * of {@code Workbook}. The file is memory-mapped rather
+     * than read through a file handle.
+     *
+     * <p>Encrypted files, and files larger than 2GB, are
+     * opened the same way as {@link #open(File)}.</p>
+     *
+     * @param path file to read in
+     * @return built streaming reader instance
+     * @throws com.monitorjbl.xlsx.exceptions.OpenException if there is an issue opening the file
+     * @throws com.monitorjbl.xlsx.exceptions.ReadException if there is an issue reading the file
+     */
+    public Workbook open(Path path) {
+      StreamingWorkbookReader workbook = new StreamingWorkbookReader(this);
+      workbook.init(path);
+      return new StreamingWorkbook(workbook);
+    }
+
+    /**
+     * Reads a workbook that is already in memory and returns a
+     * new instance of {@code Workbook}. The zip entries are read
+     * directly out of the array, so no temporary file is written.
+     *
+     * <p>The array must not be modified until the workbook is
+     * closed.</p>
+     *
+     * @param bytes contents of the workbook
+     * @return built streaming reader instance
+     * @throws com.monitorjbl.xlsx.exceptions.OpenException if there is an issue opening the workbook
+     * @throws com.monitorjbl.xlsx.exceptions.ReadException if there is an issue reading the workbook
+     */
+    public Workbook open(byte[] bytes) {
+      return open(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Reads a workbook that is already in memory and returns a
+     * new instance of {@code Workbook}. The zip entries are read
+     * directly out of the buffer, so no temporary file is written.
+     *
+     * <p>Only the bytes between the buffer's position and its
+     * limit are read, and the position is left as it is. The
+     * contents must not be modified until the workbook is
+     * closed.</p>
+     *
+     * @param buffer contents of the workbook
+     * @return built streaming reader instance
+     * @throws com.monitorjbl.xlsx.exceptions.OpenException if there is an issue opening the workbook
+     * @throws com.monitorjbl.xlsx.exceptions.ReadException if there is an issue reading the workbook
+     */
+    public Workbook open(ByteBuffer buffer) {
+      StreamingWorkbookReader workbook = new StreamingWorkbookReader(this);
+      workbook.init(buffer);
+      return new StreamingWorkbook(workbook);
+    }
+
     /**
      * Reads a given {@code InputStream} and returns a new
      * instance of {@code StreamingReader}. Due to Apache POI
@@ -282,7 +737,7 @@ public class StreamingReader implements Iterable<Row>, AutoCloseable {
     public StreamingReader read(InputStream is) {
       File f = null;
       try {
-        f = writeInputStreamToFile(is, bufferSize);
+        f = writeInputStreamToFile(is, bufferSize, spoolDirectory);
         log.debug("Created temp file [" + f.getAbsolutePath() + "]");
 
         StreamingReader r = read(f);
@@ -322,7 +777,6 @@ public class StreamingReader implements Iterable<Row>, AutoCloseable {
           pkg = OPCPackage.open(f);
         }
 
-        boolean use1904Dates = false;
         XSSFReader reader = new XSSFReader(pkg);
 
         SharedStringsTable sst;
@@ -336,14 +790,12 @@ public class StreamingReader implements Iterable<Row>, AutoCloseable {
         }
 
         StylesTable styles = reader.getStylesTable();
-        NodeList workbookPr = searchForNodeList(document(reader.getWorkbookData()), "/ss:workbook/ss:workbookPr");
-        if (workbookPr.getLength() == 1) {
-          final Node date1904 = workbookPr.item(0).getAttributes().getNamedItem("date1904");
-          if (date1904 != null) {
-            use1904Dates = ("1".equals(date1904.getTextContent()));
-          }
+        WorkbookMetadata metadata;
+        try(InputStream workbookData = reader.getWorkbookData()) {
+          metadata = WorkbookMetadata.read(workbookData);
         }
-        InputStream sheet = findSheet(reader);
+        boolean use1904Dates = metadata.isUse1904Dates();
+        InputStream sheet = findSheet(reader, metadata);
         if(sheet == null) {
           throw new MissingSheetException("Unable to find sheet at index [" + sheetIndex + "]");
         }
@@ -364,14 +816,13 @@ public class StreamingReader implements Iterable<Row>, AutoCloseable {
     /**
      * @deprecated This will be removed when the transition to the 1.x API is complete
      */
-    private InputStream findSheet(XSSFReader reader) throws IOException, InvalidFormatException {
+    private InputStream findSheet(XSSFReader reader, WorkbookMetadata metadata) throws IOException, InvalidFormatException {
       int index = sheetIndex;
       if(sheetName != null) {
         index = -1;
-        //This file is separate from the worksheet data, and should be fairly small
-        NodeList nl = searchForNodeList(document(reader.getWorkbookData()), "/ss:workbook/ss:sheets/ss:sheet");
-        for(int i = 0; i < nl.getLength(); i++) {
-          if(Objects.equals(nl.item(i).getAttributes().getNamedItem("name").getTextContent(), sheetName)) {
+        List<Map<String, String>> sheets = metadata.getSheetProperties();
+        for(int i = 0; i < sheets.size(); i++) {
+          if(Objects.equals(sheets.get(i).get("name"), sheetName)) {
             index = i;
           }
         }
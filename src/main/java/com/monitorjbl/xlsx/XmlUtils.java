@@ -17,6 +17,15 @@ import java.io.InputStream;
 import java.util.*;
 
 public class XmlUtils {
+  //XPathFactory lookup is expensive and XPath instances are not thread-safe, so keep one per thread
+  private static final ThreadLocal<XPath> XPATH = ThreadLocal.withInitial(() -> {
+    XPath xp = XPathFactory.newInstance().newXPath();
+    NamespaceContextImpl nc = new NamespaceContextImpl();
+    nc.addNamespace("ss", "http://schemas.openxmlformats.org/spreadsheetml/2006/main");
+    xp.setNamespaceContext(nc);
+    return xp;
+  });
+
   public static Document document(InputStream is) {
     try {
       return DocumentHelper.readDocument(is);
@@ -27,12 +36,7 @@ public class XmlUtils {
 
   public static NodeList searchForNodeList(Document document, String xpath) {
     try {
-      XPath xp = XPathFactory.newInstance().newXPath();
-      NamespaceContextImpl nc = new NamespaceContextImpl();
-      nc.addNamespace("ss", "http://schemas.openxmlformats.org/spreadsheetml/2006/main");
-      xp.setNamespaceContext(nc);
-      return (NodeList)xp.compile(xpath)
-              .evaluate(document, XPathConstants.NODESET);
+      return (NodeList) XPATH.get().evaluate(xpath, document, XPathConstants.NODESET);
     } catch(XPathExpressionException e) {
       throw new ParseException(e);
     }
@@ -0,0 +1,85 @@
+package com.monitorjbl.xlsx.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Read-only channel over the remaining bytes of a buffer, which may be on the heap,
+ * direct or memory-mapped. The buffer itself is never repositioned.
+ */
+class ByteBufferChannel implements SeekableByteChannel {
+  private final ByteBuffer buffer;
+  private int position;
+  private boolean open = true;
+
+  ByteBufferChannel(ByteBuffer buffer) {
+    this.buffer = buffer.slice();
+  }
+
+  @Override
+  public synchronized int read(ByteBuffer dst) throws IOException {
+    ensureOpen();
+    int available = buffer.limit() - position;
+    if(available <= 0) {
+      return -1;
+    }
+    int length = Math.min(available, dst.remaining());
+    ByteBuffer src = buffer.duplicate();
+    src.limit(position + length);
+    src.position(position);
+    dst.put(src);
+    position += length;
+    return length;
+  }
+
+  @Override
+  public int write(ByteBuffer src) {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public synchronized long position() throws IOException {
+    ensureOpen();
+    return position;
+  }
+
+  @Override
+  public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+    ensureOpen();
+    if(newPosition < 0) {
+      throw new IllegalArgumentException("Position must not be negative");
+    }
+    position = (int) Math.min(newPosition, buffer.limit());
+    return this;
+  }
+
+  @Override
+  public long size() throws IOException {
+    ensureOpen();
+    return buffer.limit();
+  }
+
+  @Override
+  public SeekableByteChannel truncate(long size) {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public synchronized boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public synchronized void close() {
+    open = false;
+  }
+
+  private void ensureOpen() throws ClosedChannelException {
+    if(!open) {
+      throw new ClosedChannelException();
+    }
+  }
+}
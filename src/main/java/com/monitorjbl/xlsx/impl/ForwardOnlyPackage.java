@@ -0,0 +1,492 @@
+package com.monitorjbl.xlsx.impl;
+
+import com.monitorjbl.xlsx.exceptions.ParseException;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.utils.InputStreamStatistics;
+import org.apache.poi.openxml4j.util.ZipSecureFile;
+import org.apache.poi.util.StaxHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the entries of an XLSX package front to back, straight off a stream, instead
+ * of copying the whole stream to a temp file so {@code OPCPackage} can seek around in it.
+ * <p>
+ * Entries are handed out as the stream reaches them. Parts that go by before anyone has
+ * asked for them are kept around: the small ones the reader needs before it can parse any
+ * rows (relationships, workbook, styles, shared strings) are buffered in memory, and sheets
+ * are spilled to a temp file. A sheet that is being read when something further along in
+ * the package is requested has the rest of its data spilled as well, so sheets can still
+ * be read in any order; reading them in package order just never touches the disk.
+ */
+class ForwardOnlyPackage implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(ForwardOnlyPackage.class);
+
+  //Same leeway POI gives small entries before applying the zip bomb ratio check
+  private static final long GRACE_ENTRY_SIZE = 100 * 1024;
+  //Unidentified parts smaller than this are buffered in memory rather than spilled
+  private static final long SMALL_PART_SIZE = 64 * 1024;
+
+  private final ZipArchiveInputStream zip;
+  private final byte[] copyBuffer;
+  private final File spoolDirectory;
+  private final Map<String, byte[]> buffered = new HashMap<>();
+  private final Map<String, File> spilled = new HashMap<>();
+  private final List<File> tempFiles = new ArrayList<>();
+  private final List<Closeable> opened = new ArrayList<>();
+  private final Map<String, Long> compressedSizes = new HashMap<>();
+  private final Map<String, Long> sizes = new HashMap<>();
+
+  private Set<String> retainedParts;
+  private Set<String> retainedSheets;
+  private ZipArchiveEntry current;
+  private EntryInputStream handedOut;
+
+  ForwardOnlyPackage(InputStream is, int bufferSize, File spoolDirectory) {
+    this.zip = new ZipArchiveInputStream(is, "UTF-8", true, true);
+    this.copyBuffer = new byte[bufferSize];
+    this.spoolDirectory = spoolDirectory;
+  }
+
+  /**
+   * @return the name of the main document part, usually {@code xl/workbook.xml}
+   */
+  String officeDocument() throws IOException {
+    for(Relationship rel : relationships("").values()) {
+      if(rel.getType().endsWith("/officeDocument")) {
+        return rel.getTarget();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reads the relationships of a part, keyed by their id. Internal targets are
+   * resolved to the name of the part they point to.
+   *
+   * @param partName name of the source part, or an empty string for the package itself
+   * @return the relationships of the part, empty if it has none
+   */
+  Map<String, Relationship> relationships(String partName) throws IOException {
+    int slash = partName.lastIndexOf('/');
+    String relsName = partName.substring(0, slash + 1) + "_rels/" + partName.substring(slash + 1) + ".rels";
+
+    Map<String, Relationship> rels = new LinkedHashMap<>();
+    try(InputStream is = open(relsName)) {
+      if(is == null) {
+        return rels;
+      }
+      XMLEventReader parser = StaxHelper.newXMLInputFactory().createXMLEventReader(is);
+      while(parser.hasNext()) {
+        XMLEvent event = parser.nextEvent();
+        if(event.isStartElement() && "Relationship".equals(event.asStartElement().getName().getLocalPart())) {
+          StartElement rel = event.asStartElement();
+          String target = attribute(rel, "Target");
+          if(!"External".equals(attribute(rel, "TargetMode"))) {
+            target = resolve(partName, target);
+          }
+          rels.put(attribute(rel, "Id"), new Relationship(attribute(rel, "Type"), target));
+        }
+      }
+      parser.close();
+    } catch(XMLStreamException e) {
+      throw new ParseException("Unable to read relationships of [" + partName + "]", e);
+    }
+    return rels;
+  }
+
+  /**
+   * Declares which parts are going to be read. Until this is called, every XML part
+   * passed over is kept in case it turns out to be needed. Afterwards, anything else
+   * is skipped without being stored.
+   *
+   * @param parts  small parts to buffer in memory if they are passed over
+   * @param sheets sheet parts to spill to disk if they are passed over
+   */
+  void retain(Collection<String> parts, Collection<String> sheets) {
+    retainedParts = normalize(parts);
+    retainedSheets = normalize(sheets);
+    buffered.keySet().removeIf(key -> !retainedParts.contains(key) && !retainedSheets.contains(key));
+    for(Iterator<Map.Entry<String, File>> it = spilled.entrySet().iterator(); it.hasNext(); ) {
+      Map.Entry<String, File> entry = it.next();
+      if(!retainedParts.contains(entry.getKey()) && !retainedSheets.contains(entry.getKey())) {
+        entry.getValue().delete();
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Finds whichever of the given parts can be read first without passing over the
+   * others, so that large parts don't end up buffered just because of the order
+   * they were asked for in.
+   *
+   * @param partNames the candidate parts
+   * @return the part to read next, or null if none of them are in the package
+   */
+  String seek(Collection<String> partNames) throws IOException {
+    if(partNames.isEmpty()) {
+      return null;
+    }
+    for(String name : partNames) {
+      String key = key(name);
+      if(buffered.containsKey(key) || spilled.containsKey(key)) {
+        return name;
+      }
+    }
+    while(current != null || advance()) {
+      for(String name : partNames) {
+        if(key(name).equals(key(current.getName()))) {
+          return name;
+        }
+      }
+      stash(current);
+      current = null;
+    }
+    return null;
+  }
+
+  /**
+   * Opens a part, reading forward through the package if it hasn't been seen yet.
+   * Each part can only be opened once.
+   *
+   * @param partName name of the part
+   * @return the part's data, or null if the package doesn't contain it
+   */
+  InputStream open(String partName) throws IOException {
+    String key = key(partName);
+    byte[] bytes = buffered.remove(key);
+    if(bytes != null) {
+      return new ByteArrayInputStream(bytes);
+    }
+    File file = spilled.get(key);
+    if(file != null) {
+      return track(new FileInputStream(file));
+    }
+
+    while(current != null || advance()) {
+      if(key.equals(key(current.getName()))) {
+        //streamed entries often only give their sizes after the data
+        if(current.getCompressedSize() >= 0 && current.getSize() >= 0) {
+          compressedSizes.put(key, current.getCompressedSize());
+          sizes.put(key, current.getSize());
+        }
+        current = null;
+        handedOut = new EntryInputStream(key);
+        return handedOut;
+      }
+      stash(current);
+      current = null;
+    }
+    return null;
+  }
+
+  private boolean advance() throws IOException {
+    if(handedOut != null) {
+      handedOut.detach();
+      handedOut = null;
+    }
+
+    ZipArchiveEntry entry;
+    do {
+      entry = zip.getNextZipEntry();
+    } while(entry != null && entry.isDirectory());
+    current = entry;
+    return entry != null;
+  }
+
+  /**
+   * Keeps the current entry around if it is (or might be) needed later on.
+   */
+  private void stash(ZipArchiveEntry entry) throws IOException {
+    String key = key(entry.getName());
+    if(retainedParts == null) {
+      //Don't know what's needed yet, so hold on to anything that could be
+      if(key.endsWith(".rels") || (key.endsWith(".xml") && !"[content_types].xml".equals(key))) {
+        stashUnidentified(key);
+      }
+    } else if(retainedParts.contains(key)) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      copy(zip, bytes);
+      buffered.put(key, bytes.toByteArray());
+      recordSizes(key);
+    } else if(retainedSheets.contains(key)) {
+      spilled.put(key, spill(null));
+      recordSizes(key);
+    }
+  }
+
+  /**
+   * Buffers a part in memory, moving it to a temp file if it turns out not to be small.
+   * Streamed entries often don't declare their size up front, so this can't be decided
+   * before reading.
+   */
+  private void stashUnidentified(String key) throws IOException {
+    ByteArrayOutputStream head = new ByteArrayOutputStream();
+    byte[] bytes = copyBuffer;
+    int read;
+    while((read = zip.read(bytes)) != -1) {
+      checkThreshold();
+      head.write(bytes, 0, read);
+      if(head.size() > SMALL_PART_SIZE) {
+        spilled.put(key, spill(head));
+        recordSizes(key);
+        return;
+      }
+    }
+    buffered.put(key, head.toByteArray());
+    recordSizes(key);
+  }
+
+  /**
+   * Writes the rest of the current entry to a temp file.
+   *
+   * @param head data already read from the entry, if any
+   */
+  private File spill(ByteArrayOutputStream head) throws IOException {
+    File f = spoolDirectory == null
+        ? Files.createTempFile("tmp-", ".xml").toFile()
+        : Files.createTempFile(spoolDirectory.toPath(), "tmp-", ".xml").toFile();
+    tempFiles.add(f);
+    log.debug("Spilling package entry to temp file [" + f.getAbsolutePath() + "]");
+    try(OutputStream os = new FileOutputStream(f)) {
+      if(head != null) {
+        head.writeTo(os);
+      }
+      copy(zip, os);
+    }
+    return f;
+  }
+
+  private void copy(InputStream is, OutputStream os) throws IOException {
+    byte[] bytes = copyBuffer;
+    int read;
+    while((read = is.read(bytes)) != -1) {
+      checkThreshold();
+      os.write(bytes, 0, read);
+    }
+  }
+
+  private void checkThreshold() throws IOException {
+    checkThreshold(zip);
+  }
+
+  /**
+   * Applies POI's zip bomb limits to entries that never go through {@code ZipSecureFile}.
+   */
+  static void checkThreshold(InputStreamStatistics statistics) throws IOException {
+    long uncompressed = statistics.getUncompressedCount();
+    if(uncompressed > ZipSecureFile.getMaxEntrySize()) {
+      throw new IOException("Zip bomb detected! The file would exceed the max size of the expanded data in the zip-file.");
+    }
+    if(uncompressed > GRACE_ENTRY_SIZE && (double) statistics.getCompressedCount() / uncompressed < ZipSecureFile.getMinInflateRatio()) {
+      throw new IOException("Zip bomb detected! The file would exceed the max. ratio of compressed file size to the size of the expanded data.");
+    }
+  }
+
+  /**
+   * @return size of a part's entry in the package, or -1 if it hasn't been read to the end
+   * yet and the entry's header doesn't give it
+   */
+  long compressedSize(String partName) {
+    Long size = compressedSizes.get(key(partName));
+    return size == null ? -1 : size;
+  }
+
+  /**
+   * @return inflated size of a part, or -1 if it hasn't been read to the end yet and the
+   * entry's header doesn't give it
+   */
+  long size(String partName) {
+    Long size = sizes.get(key(partName));
+    return size == null ? -1 : size;
+  }
+
+  /**
+   * @return how much of a part's entry has been read off the package so far, or -1 if
+   * the part isn't the one currently being read straight from the package
+   */
+  long compressedRead(String partName) {
+    EntryInputStream entry = handedOut;
+    if(entry == null || !entry.isStreaming() || !entry.key.equals(key(partName))) {
+      return -1;
+    }
+    return zip.getCompressedCount();
+  }
+
+  private void recordSizes(String key) {
+    compressedSizes.put(key, zip.getCompressedCount());
+    sizes.put(key, zip.getUncompressedCount());
+  }
+
+  /**
+   * @return the temp files parts have been spilled to so far
+   */
+  List<File> tempFiles() {
+    return Collections.unmodifiableList(tempFiles);
+  }
+
+  private InputStream track(InputStream is) {
+    opened.add(is);
+    return is;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      for(Closeable c : opened) {
+        c.close();
+      }
+      zip.close();
+    } finally {
+      for(File f : tempFiles) {
+        if(log.isDebugEnabled()) {
+          log.debug("Deleting tmp file [" + f.getAbsolutePath() + "]");
+        }
+        f.delete();
+      }
+      tempFiles.clear();
+      spilled.clear();
+      buffered.clear();
+    }
+  }
+
+  private static Set<String> normalize(Collection<String> names) {
+    Set<String> keys = new HashSet<>();
+    for(String name : names) {
+      keys.add(key(name));
+    }
+    return keys;
+  }
+
+  /**
+   * Part names are case-insensitive
+   */
+  private static String key(String name) {
+    return (name.startsWith("/") ? name.substring(1) : name).toLowerCase(Locale.ROOT);
+  }
+
+  private static String resolve(String sourcePart, String target) {
+    try {
+      String path = new URI(null, null, "/" + sourcePart, null).resolve(new URI(target)).getPath();
+      return path.startsWith("/") ? path.substring(1) : path;
+    } catch(URISyntaxException e) {
+      return sourcePart.substring(0, sourcePart.lastIndexOf('/') + 1) + target;
+    }
+  }
+
+  private static String attribute(StartElement startElement, String localName) {
+    Attribute attr = startElement.getAttributeByName(new QName(localName));
+    return attr == null ? null : attr.getValue();
+  }
+
+  static class Relationship {
+    private final String type;
+    private final String target;
+
+    Relationship(String type, String target) {
+      this.type = type;
+      this.target = target;
+    }
+
+    String getType() {
+      return type;
+    }
+
+    String getTarget() {
+      return target;
+    }
+  }
+
+  /**
+   * Data of the entry the zip stream is positioned at. If the package has to move
+   * on before the entry has been read to the end, the remainder is spilled to a
+   * temp file and reading carries on from there.
+   */
+  private class EntryInputStream extends InputStream {
+    private final String key;
+    private InputStream delegate = zip;
+    private boolean eof;
+
+    EntryInputStream(String key) {
+      this.key = key;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if(eof) {
+        return -1;
+      }
+      int read = delegate.read(b, off, len);
+      if(read == -1) {
+        eof = true;
+        if(delegate == zip) {
+          recordSizes(key);
+        }
+      } else if(delegate == zip) {
+        checkThreshold();
+      }
+      return read;
+    }
+
+    /**
+     * @return whether the entry is still being read from the zip stream rather than a temp file
+     */
+    boolean isStreaming() {
+      return !eof && delegate == zip;
+    }
+
+    void detach() throws IOException {
+      if(!eof && delegate == zip) {
+        delegate = track(new FileInputStream(spill(null)));
+        recordSizes(key);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      //the zip stream is shared by all entries and closed with the package
+      if(delegate != zip) {
+        delegate.close();
+      }
+      eof = true;
+    }
+  }
+}
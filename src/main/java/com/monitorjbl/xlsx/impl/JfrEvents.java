@@ -0,0 +1,219 @@
+package com.monitorjbl.xlsx.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Java Flight Recorder events for the work that goes into reading a workbook, so a
+ * recording shows whether time goes into spooling, opening the package, loading
+ * shared strings and styles, or parsing rows.
+ * <p>
+ * The {@code jdk.jfr} API is missing from most Java 8 runtimes, so it's looked up reflectively
+ * and the event types are defined at runtime through {@code jdk.jfr.EventFactory}.
+ * Without it, or when an event type isn't enabled in any recording, {@link EventType#begin()}
+ * returns null and nothing else happens.
+ * </p>
+ */
+public final class JfrEvents {
+  private static final Logger log = LoggerFactory.getLogger(JfrEvents.class);
+  private static final Api API = Api.load();
+
+  /**
+   * A step in opening a workbook. Fields: phase.
+   */
+  public static final EventType WORKBOOK_PHASE = new EventType("com.monitorjbl.xlsx.WorkbookPhase",
+      "Workbook Open Phase", "A step in opening a workbook", true, null,
+      new Value(String.class, "phase", "Phase"));
+
+  /**
+   * Parsing the rows that fill a sheet's row cache. Fields: sheet, rows.
+   */
+  public static final EventType ROW_BATCH = new EventType("com.monitorjbl.xlsx.RowBatch",
+      "Row Batch", "Parsing a batch of rows into the row cache", false, null,
+      new Value(String.class, "sheet", "Sheet"), new Value(int.class, "rows", "Rows"));
+
+  /**
+   * Reading the shared strings part into a cache. Fields: strings, background.
+   */
+  public static final EventType SHARED_STRINGS_LOAD = new EventType("com.monitorjbl.xlsx.SharedStringsLoad",
+      "Shared Strings Load", "Reading the shared strings into the reader's cache", true, null,
+      new Value(int.class, "strings", "Strings"), new Value(boolean.class, "background", "Background"));
+
+  /**
+   * Reading a shared string back from the cache file. Only reads of 1ms or more are
+   * recorded unless the recording lowers the threshold. Fields: length.
+   */
+  public static final EventType SHARED_STRING_DISK_READ = new EventType("com.monitorjbl.xlsx.SharedStringDiskRead",
+      "Shared String Disk Read", "Reading a shared string back from the cache file", false, "1 ms",
+      new Value(int.class, "length", "String Length"));
+
+  private JfrEvents() {
+  }
+
+  public static final class EventType {
+    private final Object factory;
+    private final Object type;
+
+    private EventType(String name, String label, String description, boolean stackTrace, String threshold,
+                      Value... values) {
+      Object factory = null;
+      Object type = null;
+      if(API != null) {
+        try {
+          factory = API.create(name, label, description, stackTrace, threshold, values);
+          type = API.getEventType.invoke(factory);
+        } catch(ReflectiveOperationException | RuntimeException e) {
+          log.debug("Unable to define JFR event [" + name + "]", e);
+          factory = null;
+        }
+      }
+      this.factory = factory;
+      this.type = type;
+    }
+
+    /**
+     * @return an event whose duration starts now, or null if this type isn't being recorded
+     */
+    public Event begin() {
+      if(factory == null) {
+        return null;
+      }
+      try {
+        if(!(Boolean) API.isEnabled.invoke(type)) {
+          return null;
+        }
+        Object event = API.newEvent.invoke(factory);
+        API.begin.invoke(event);
+        return new Event(event);
+      } catch(ReflectiveOperationException e) {
+        log.debug("Unable to begin JFR event", e);
+        return null;
+      }
+    }
+  }
+
+  public static final class Event {
+    private final Object event;
+
+    private Event(Object event) {
+      this.event = event;
+    }
+
+    /**
+     * Ends the event and records it, if it passes the recording's threshold.
+     *
+     * @param values the event's fields, in the order listed for its type
+     */
+    public void commit(Object... values) {
+      try {
+        API.end.invoke(event);
+        if((Boolean) API.shouldCommit.invoke(event)) {
+          for(int i = 0; i < values.length; i++) {
+            API.set.invoke(event, i, values[i]);
+          }
+          API.commit.invoke(event);
+        }
+      } catch(ReflectiveOperationException e) {
+        log.debug("Unable to commit JFR event", e);
+      }
+    }
+  }
+
+  private static final class Value {
+    private final Class<?> type;
+    private final String name;
+    private final String label;
+
+    Value(Class<?> type, String name, String label) {
+      this.type = type;
+      this.name = name;
+      this.label = label;
+    }
+  }
+
+  /**
+   * The parts of {@code jdk.jfr} used to define and commit events.
+   */
+  private static final class Api {
+    private Constructor<?> annotationElement;
+    private Constructor<?> valueDescriptor;
+    private Class<? extends Annotation> nameAnnotation;
+    private Class<? extends Annotation> labelAnnotation;
+    private Class<? extends Annotation> descriptionAnnotation;
+    private Class<? extends Annotation> categoryAnnotation;
+    private Class<? extends Annotation> stackTraceAnnotation;
+    private Class<? extends Annotation> thresholdAnnotation;
+    private Method createFactory;
+    private Method getEventType;
+    private Method newEvent;
+    private Method isEnabled;
+    private Method begin;
+    private Method end;
+    private Method shouldCommit;
+    private Method set;
+    private Method commit;
+
+    static Api load() {
+      try {
+        Api api = new Api();
+        Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+        Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+        Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+        Class<?> eventClass = Class.forName("jdk.jfr.Event");
+        api.annotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+        api.valueDescriptor = valueDescriptorClass.getConstructor(Class.class, String.class, List.class);
+        api.nameAnnotation = annotation("jdk.jfr.Name");
+        api.labelAnnotation = annotation("jdk.jfr.Label");
+        api.descriptionAnnotation = annotation("jdk.jfr.Description");
+        api.categoryAnnotation = annotation("jdk.jfr.Category");
+        api.stackTraceAnnotation = annotation("jdk.jfr.StackTrace");
+        api.thresholdAnnotation = annotation("jdk.jfr.Threshold");
+        api.createFactory = factoryClass.getMethod("create", List.class, List.class);
+        api.getEventType = factoryClass.getMethod("getEventType");
+        api.newEvent = factoryClass.getMethod("newEvent");
+        api.isEnabled = Class.forName("jdk.jfr.EventType").getMethod("isEnabled");
+        api.begin = eventClass.getMethod("begin");
+        api.end = eventClass.getMethod("end");
+        api.shouldCommit = eventClass.getMethod("shouldCommit");
+        api.set = eventClass.getMethod("set", int.class, Object.class);
+        api.commit = eventClass.getMethod("commit");
+        return api;
+      } catch(ReflectiveOperationException | LinkageError | RuntimeException e) {
+        log.debug("Java Flight Recorder isn't available, no JFR events will be emitted");
+        return null;
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Annotation> annotation(String name) throws ClassNotFoundException {
+      return (Class<? extends Annotation>) Class.forName(name);
+    }
+
+    Object create(String name, String label, String description, boolean stackTrace, String threshold,
+                  Value[] values) throws ReflectiveOperationException {
+      List<Object> annotations = new ArrayList<>();
+      annotations.add(annotationElement.newInstance(nameAnnotation, name));
+      annotations.add(annotationElement.newInstance(labelAnnotation, label));
+      annotations.add(annotationElement.newInstance(descriptionAnnotation, description));
+      annotations.add(annotationElement.newInstance(categoryAnnotation, new String[]{"Excel Streaming Reader"}));
+      annotations.add(annotationElement.newInstance(stackTraceAnnotation, stackTrace));
+      if(threshold != null) {
+        annotations.add(annotationElement.newInstance(thresholdAnnotation, threshold));
+      }
+
+      List<Object> fields = new ArrayList<>();
+      for(Value value : values) {
+        List<Object> fieldAnnotations = Collections.singletonList(annotationElement.newInstance(labelAnnotation, value.label));
+        fields.add(valueDescriptor.newInstance(value.type, value.name, fieldAnnotations));
+      }
+      return createFactory.invoke(null, annotations, fields);
+    }
+  }
+}
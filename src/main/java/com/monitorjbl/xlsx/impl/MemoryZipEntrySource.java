@@ -0,0 +1,62 @@
+package com.monitorjbl.xlsx.impl;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.InputStreamStatistics;
+import org.apache.poi.openxml4j.util.ZipFileZipEntrySource;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Zip entries read directly out of a buffer, so {@code OPCPackage} can open a workbook
+ * that is already in memory (or memory-mapped) without it being copied to a file first.
+ */
+class MemoryZipEntrySource extends ZipFileZipEntrySource {
+
+  MemoryZipEntrySource(ByteBuffer buffer) throws IOException {
+    super(new ZipFile(new ByteBufferChannel(buffer)));
+  }
+
+  @Override
+  public InputStream getInputStream(ZipArchiveEntry entry) throws IOException {
+    InputStream is = super.getInputStream(entry);
+    if(is instanceof InputStreamStatistics) {
+      //ZipSecureFile would normally apply the zip bomb limits, but it only works on files
+      return new ThresholdInputStream(is, (InputStreamStatistics) is);
+    }
+    return is;
+  }
+
+  static class ThresholdInputStream extends FilterInputStream {
+    private final InputStreamStatistics statistics;
+
+    ThresholdInputStream(InputStream in, InputStreamStatistics statistics) {
+      super(in);
+      this.statistics = statistics;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      ForwardOnlyPackage.checkThreshold(statistics);
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = super.read(b, off, len);
+      ForwardOnlyPackage.checkThreshold(statistics);
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      ForwardOnlyPackage.checkThreshold(statistics);
+      return skipped;
+    }
+  }
+}
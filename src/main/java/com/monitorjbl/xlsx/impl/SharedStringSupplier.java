@@ -0,0 +1,43 @@
+package com.monitorjbl.xlsx.impl;
+
+import com.monitorjbl.xlsx.sst.BufferedStringsTable;
+import org.apache.poi.xssf.model.SharedStringsTable;
+
+/**
+ * Keeps the index of a cell's shared string and looks the string up the first time it's
+ * needed. When lookups are deferred that's when the cell is read, so cells that are never
+ * read never touch the table.
+ */
+class SharedStringSupplier implements Supplier {
+    private final SharedStringsTable sst;
+    private final int idx;
+    private final StringInterner interner;
+    private String val;
+
+    SharedStringSupplier(SharedStringsTable sst, int idx, StringInterner interner) {
+        this.sst = sst;
+        this.idx = idx;
+        this.interner = interner;
+    }
+
+    int getIndex() {
+        return idx;
+    }
+
+    @Override
+    public Object getContent() {
+        if(val == null) {
+            val = interner == null ? lookup(sst, idx) : interner.sharedString(sst, idx);
+        }
+        return val;
+    }
+
+    /**
+     * Skips the {@code XSSFRichTextString} that POI's table wraps each string in where possible.
+     */
+    static String lookup(SharedStringsTable sst, int idx) {
+        return sst instanceof BufferedStringsTable
+            ? ((BufferedStringsTable) sst).getString(idx)
+            : sst.getItemAt(idx).getString();
+    }
+}
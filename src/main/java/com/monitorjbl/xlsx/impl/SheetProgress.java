@@ -0,0 +1,91 @@
+package com.monitorjbl.xlsx.impl;
+
+import com.monitorjbl.xlsx.ReadProgress;
+
+import java.io.InputStream;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps track of how far through a sheet the reader has got, and passes it on to a
+ * {@link ReadProgress} at most once per interval. Readers only hold one of these when
+ * a listener is configured.
+ */
+class SheetProgress {
+  private final ReadProgress listener;
+  private final String sheetName;
+  private final long intervalNanos;
+  private final LongSupplier compressedSize;
+  private final LongSupplier inflatedSize;
+  private final LongSupplier compressedRead;
+  private CountingInputStream data;
+  private int rows;
+  private long lastReport;
+  private boolean finished;
+
+  /**
+   * @param compressedSize size of the sheet's entry in the package, or -1 if it isn't known
+   * @param inflatedSize   size of the sheet's XML, or -1 if it isn't known
+   * @param compressedRead how much of the sheet's entry has been read, or -1 if it isn't counted
+   *                       directly and has to be worked out from the XML read
+   */
+  SheetProgress(ReadProgress listener, String sheetName, long intervalMillis, LongSupplier compressedSize,
+                LongSupplier inflatedSize, LongSupplier compressedRead) {
+    this.listener = listener;
+    this.sheetName = sheetName;
+    this.intervalNanos = intervalMillis * 1_000_000;
+    this.compressedSize = compressedSize;
+    this.inflatedSize = inflatedSize;
+    this.compressedRead = compressedRead;
+    this.lastReport = System.nanoTime();
+  }
+
+  /**
+   * Counts the sheet's XML as it's read.
+   */
+  InputStream count(InputStream is) {
+    data = new CountingInputStream(is);
+    return data;
+  }
+
+  /**
+   * @param estimatedRows rows according to the sheet's dimension, or -1
+   */
+  void rowsParsed(int rows, int estimatedRows) {
+    this.rows += rows;
+    long now = System.nanoTime();
+    if(now - lastReport >= intervalNanos) {
+      lastReport = now;
+      long compressed = compressedSize.getAsLong();
+      listener.sheetProgress(sheetName, compressedRead(compressed), compressed, this.rows, estimatedRows);
+    }
+  }
+
+  /**
+   * Reports the end of the sheet, the first time it's called.
+   */
+  void finished(int estimatedRows) {
+    if(!finished) {
+      finished = true;
+      long compressed = compressedSize.getAsLong();
+      listener.sheetProgress(sheetName, compressed, compressed, rows, estimatedRows);
+    }
+  }
+
+  /**
+   * The inflater reads ahead of the parser, and the parser of the rows, so the actual
+   * position in the compressed data is no more precise than this anyway. A sheet that's
+   * read straight off a stream usually has no sizes until its end, but then the position
+   * in the stream is known instead.
+   */
+  private long compressedRead(long compressed) {
+    long read = compressedRead.getAsLong();
+    if(read >= 0) {
+      return compressed < 0 ? read : Math.min(compressed, read);
+    }
+    long inflated = inflatedSize.getAsLong();
+    if(data == null || compressed < 0 || inflated <= 0) {
+      return -1;
+    }
+    return Math.min(compressed, (long) ((double) data.getCount() / inflated * compressed));
+  }
+}
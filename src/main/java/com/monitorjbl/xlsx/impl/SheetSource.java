@@ -0,0 +1,11 @@
+package com.monitorjbl.xlsx.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Provides the XML data of a sheet once it is actually needed.
+ */
+interface SheetSource {
+  InputStream open() throws IOException;
+}
@@ -57,6 +57,46 @@ public class StreamingCell implements Cell {
         this.rawContents = rawContents;
     }
 
+    /**
+     * Returns the index of this cell's value in the workbook's shared strings table,
+     * which is the same for every cell with the same text. Comparing or grouping cells
+     * by index avoids looking their text up at all.
+     *
+     * @return the shared string index, or -1 if the cell's value isn't a shared string
+     */
+    public int getSharedStringIndex() {
+        if(contentsSupplier instanceof SharedStringSupplier) {
+            return ((SharedStringSupplier) contentsSupplier).getIndex();
+        }
+        return -1;
+    }
+
+    /**
+     * Looks up this cell's shared string, if it has one and it hasn't been already.
+     */
+    void resolveSharedString() {
+        if(contentsSupplier instanceof SharedStringSupplier) {
+            contentsSupplier.getContent();
+        }
+    }
+
+    /**
+     * Shared strings are never blank, and are only looked up once their text is needed.
+     * Numbers are only formatted once their text is needed, so the raw contents are
+     * checked before the formatted ones.
+     */
+    private boolean isBlank() {
+        return type == null || !(contentsSupplier instanceof SharedStringSupplier) && rawContents == null && contentsSupplier.getContent() == null;
+    }
+
+    /**
+     * Shared strings are looked up lazily, in which case the raw contents are a
+     * {@link Supplier} of the string.
+     */
+    private Object rawContents() {
+        return rawContents instanceof Supplier ? ((Supplier) rawContents).getContent() : rawContents;
+    }
+
     public String getNumericFormat() {
         return numericFormat;
     }
@@ -153,7 +193,7 @@ public class StreamingCell implements Cell {
     public CellType getCellType() {
         if(formulaType) {
             return CellType.FORMULA;
-        } else if(contentsSupplier.getContent() == null || type == null) {
+        } else if(isBlank()) {
             return CellType.BLANK;
         } else if("n".equals(type)) {
             return CellType.NUMERIC;
@@ -192,7 +232,8 @@ public class StreamingCell implements Cell {
      */
     @Override
     public double getNumericCellValue() {
-        return rawContents == null ? 0.0 : Double.parseDouble((String) rawContents);
+        Object raw = rawContents();
+        return raw == null ? 0.0 : Double.parseDouble((String) raw);
     }
 
     /**
@@ -229,7 +270,7 @@ public class StreamingCell implements Cell {
             case BLANK:
                 return false;
             case BOOLEAN:
-                return rawContents != null && TRUE_AS_STRING.equals(rawContents);
+                return TRUE_AS_STRING.equals(rawContents());
             case FORMULA:
                 throw new NotSupportedException();
             default:
@@ -327,7 +368,7 @@ public class StreamingCell implements Cell {
     @Override
     public CellType getCachedFormulaResultType() {
         if(formulaType) {
-            if(contentsSupplier.getContent() == null || type == null) {
+            if(isBlank()) {
                 return CellType.BLANK;
             } else if("n".equals(type)) {
                 return CellType.NUMERIC;
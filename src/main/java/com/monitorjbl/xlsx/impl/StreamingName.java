@@ -0,0 +1,144 @@
+package com.monitorjbl.xlsx.impl;
+
+import com.monitorjbl.xlsx.exceptions.NotSupportedException;
+import org.apache.poi.ss.usermodel.Name;
+
+/**
+ * Read-only defined name, as declared in the {@code <definedNames>} section of the workbook.
+ */
+public class StreamingName implements Name {
+  private final String name;
+  private final String refersToFormula;
+  private final int sheetIndex;
+  private final boolean hidden;
+  private final boolean function;
+  private final String comment;
+  private String sheetName;
+
+  public StreamingName(String name, String refersToFormula, int sheetIndex, boolean hidden, boolean function, String comment) {
+    this.name = name;
+    this.refersToFormula = refersToFormula;
+    this.sheetIndex = sheetIndex;
+    this.hidden = hidden;
+    this.function = function;
+    this.comment = comment;
+  }
+
+  void setSheetName(String sheetName) {
+    this.sheetName = sheetName;
+  }
+
+  /* Supported */
+
+  /**
+   * Get the sheet name this name is scoped to
+   *
+   * @return sheet name, or null if the name is scoped to the workbook
+   */
+  @Override
+  public String getSheetName() {
+    return sheetName;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getNameName() {
+    return name;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getRefersToFormula() {
+    return refersToFormula;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isFunctionName() {
+    return function;
+  }
+
+  /**
+   * Checks if the formula this name refers to contains a reference to a deleted cell
+   *
+   * @return true if the name refers to a deleted cell
+   */
+  @Override
+  public boolean isDeleted() {
+    return refersToFormula != null && refersToFormula.contains("#REF!");
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isHidden() {
+    return hidden;
+  }
+
+  /**
+   * Returns the sheet index this name applies to.
+   *
+   * @return the sheet index this name applies to, -1 if this name applies to the entire workbook
+   */
+  @Override
+  public int getSheetIndex() {
+    return sheetIndex;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getComment() {
+    return comment;
+  }
+
+  /* Not supported */
+
+  /**
+   * Not supported
+   */
+  @Override
+  public void setNameName(String name) {
+    throw new NotSupportedException();
+  }
+
+  /**
+   * Not supported
+   */
+  @Override
+  public void setRefersToFormula(String formulaText) {
+    throw new NotSupportedException();
+  }
+
+  /**
+   * Not supported
+   */
+  @Override
+  public void setSheetIndex(int sheetId) {
+    throw new NotSupportedException();
+  }
+
+  /**
+   * Not supported
+   */
+  @Override
+  public void setComment(String comment) {
+    throw new NotSupportedException();
+  }
+
+  /**
+   * Not supported
+   */
+  @Override
+  public void setFunction(boolean value) {
+    throw new NotSupportedException();
+  }
+}
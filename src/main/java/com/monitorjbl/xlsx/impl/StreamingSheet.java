@@ -20,6 +20,7 @@ import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellAddress;
 import org.apache.poi.ss.util.CellRangeAddress;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -77,6 +78,21 @@ public class StreamingSheet implements Sheet {
     return reader.isColumnHidden(columnIndex);
   }
 
+  /**
+   * Passes the value of every cell to a sink as text, without building rows and
+   * cells, for exporting a sheet as quickly as possible. The sheet is read to the
+   * end, so this can't be combined with iterating it.
+   *
+   * @param formatted whether to format numbers, dates and booleans the way Excel shows
+   *                  them, rather than giving them as stored
+   * @param sink      receives the values
+   * @throws IOException if the sink couldn't take a value
+   * @throws com.monitorjbl.xlsx.exceptions.ReadException if the sheet has already been read from
+   */
+  public void readValues(boolean formatted, ValueSink sink) throws IOException {
+    reader.readValues(formatted, sink);
+  }
+
   /* Unsupported */
 
   /**
@@ -2,11 +2,15 @@ package com.monitorjbl.xlsx.impl;
 
 import com.monitorjbl.xlsx.exceptions.CloseException;
 import com.monitorjbl.xlsx.exceptions.ParseException;
+import com.monitorjbl.xlsx.exceptions.ReadException;
+import com.monitorjbl.xlsx.sst.BufferedStringsTable;
 import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.DataFormatter;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.StaxHelper;
 import org.apache.poi.xssf.model.SharedStringsTable;
 import org.apache.poi.xssf.model.StylesTable;
 import org.apache.poi.xssf.usermodel.XSSFCellStyle;
@@ -18,11 +22,14 @@ import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.Attribute;
 import javax.xml.stream.events.Characters;
 import javax.xml.stream.events.EndElement;
 import javax.xml.stream.events.StartElement;
 import javax.xml.stream.events.XMLEvent;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -34,7 +41,12 @@ public class StreamingSheetReader implements Iterable<Row> {
 
   private final SharedStringsTable sst;
   private final StylesTable stylesTable;
-  private final XMLEventReader parser;
+  private final SheetSource source;
+  private StringInterner interner;
+  private boolean deferSharedStrings;
+  private WorkbookMetrics.Sheet metrics;
+  private SheetProgress progress;
+  private XMLEventReader parser;
   private final DataFormatter dataFormatter = new DataFormatter();
   private final Set<Integer> hiddenColumns = new HashSet<>();
 
@@ -51,31 +63,111 @@ public class StreamingSheetReader implements Iterable<Row> {
   private StreamingRow currentRow;
   private StreamingCell currentCell;
   private boolean use1904Dates;
+  private boolean valuesRead;
+  private String[] numericFormats;
+  private short[] numericFormatIndexes;
 
   public StreamingSheetReader(SharedStringsTable sst, StylesTable stylesTable, XMLEventReader parser,
                               final boolean use1904Dates, int rowCacheSize) {
     this.sst = sst;
     this.stylesTable = stylesTable;
     this.parser = parser;
+    this.source = null;
     this.use1904Dates = use1904Dates;
     this.rowCacheSize = rowCacheSize;
+    this.deferSharedStrings = isLoadedInBackground(sst);
+  }
+
+  /**
+   * Creates a reader whose sheet data isn't opened until the first row is requested.
+   */
+  StreamingSheetReader(SharedStringsTable sst, StylesTable stylesTable, SheetSource source,
+                       final boolean use1904Dates, int rowCacheSize) {
+    this.sst = sst;
+    this.stylesTable = stylesTable;
+    this.parser = null;
+    this.source = source;
+    this.use1904Dates = use1904Dates;
+    this.rowCacheSize = rowCacheSize;
+    this.deferSharedStrings = isLoadedInBackground(sst);
+  }
+
+  /**
+   * A table that's still being loaded is only waited on for the strings that are actually read.
+   */
+  private static boolean isLoadedInBackground(SharedStringsTable sst) {
+    return sst instanceof BufferedStringsTable && ((BufferedStringsTable) sst).isLoadedInBackground();
   }
 
   void setSheet(StreamingSheet sheet) {
     this.sheet = sheet;
   }
 
+  /**
+   * Makes repeated string values the same instance, or stops doing so if null.
+   */
+  void setStringInterner(StringInterner interner) {
+    this.interner = interner;
+  }
+
+  /**
+   * Looks up shared strings only when a cell's value is first read, instead of when its row is parsed,
+   * which is always the case for a table that's loaded in the background.
+   */
+  void setDeferSharedStrings(boolean deferSharedStrings) {
+    this.deferSharedStrings = deferSharedStrings;
+  }
+
+  /**
+   * Reports on the rows parsed and, if the reader opens the sheet data itself, the bytes read.
+   */
+  void setMetrics(WorkbookMetrics.Sheet metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Reports the position in the sheet, counting the bytes read if the reader opens the sheet data itself.
+   */
+  void setProgress(SheetProgress progress) {
+    this.progress = progress;
+  }
+
   /**
    * Read through a number of rows equal to the rowCacheSize field or until there is no more data to read
    *
    * @return true if data was read
    */
   private boolean getRow() {
+    if(valuesRead) {
+      rowCache.clear();
+      rowCacheIterator = rowCache.iterator();
+      return false;
+    }
     try {
+      JfrEvents.Event event = JfrEvents.ROW_BATCH.begin();
+      long start = metrics == null ? 0 : System.nanoTime();
+      if(parser == null) {
+        parser = openParser();
+      }
       rowCache.clear();
       while(rowCache.size() < rowCacheSize && parser.hasNext()) {
         handleEvent(parser.nextEvent());
       }
+      if(event != null) {
+        event.commit(sheet == null ? null : sheet.getSheetName(), rowCache.size());
+      }
+      if(metrics != null) {
+        metrics.rowsParsed(rowCache, System.nanoTime() - start);
+        if(!parser.hasNext()) {
+          metrics.finished();
+        }
+      }
+      if(progress != null) {
+        progress.rowsParsed(rowCache.size(), estimatedRows());
+        if(!parser.hasNext()) {
+          progress.finished(estimatedRows());
+        }
+      }
       rowCacheIterator = rowCache.iterator();
       return rowCacheIterator.hasNext();
     } catch(XMLStreamException e) {
@@ -83,6 +175,277 @@ public class StreamingSheetReader implements Iterable<Row> {
     }
   }
 
+  /**
+   * Passes the value of every cell to a sink as text, going straight from the XML
+   * rather than through rows and cells. The data is read with a cursor rather than
+   * as events too, so next to nothing is allocated per cell beyond the values.
+   * <p>
+   * Formatted values are what {@link DataFormatter} makes of them, with booleans as
+   * {@code TRUE} or {@code FALSE}. Unformatted ones are as stored, apart from shared
+   * strings being looked up. Errors are given as their code, and formulas as their
+   * cached result, either way.
+   * </p>
+   * <p>
+   * The sheet is read to the end, so this can only be done instead of iterating it.
+   * </p>
+   *
+   * @param formatted whether to format values the way Excel shows them
+   * @param sink      receives the values
+   */
+  void readValues(boolean formatted, ValueSink sink) throws IOException {
+    if(parser != null || source == null || valuesRead) {
+      throw new ReadException("Sheet [" + (sheet == null ? null : sheet.getSheetName()) + "] has already been read from");
+    }
+    valuesRead = true;
+    XMLStreamReader reader;
+    try {
+      reader = StaxHelper.newXMLInputFactory().createXMLStreamReader(openData());
+    } catch(XMLStreamException e) {
+      throw new ReadException("Unable to read sheet data", e);
+    }
+
+    StringBuilder text = new StringBuilder();
+    int rowNum = 0;
+    int colNum = 0;
+    String type = null;
+    int style = -1;
+    int rows = 0;
+    int cells = 0;
+    JfrEvents.Event event = JfrEvents.ROW_BATCH.begin();
+    long start = metrics == null ? 0 : System.nanoTime();
+    try {
+      while(reader.hasNext()) {
+        int next = reader.next();
+        if(next == XMLStreamConstants.START_ELEMENT && isSpreadsheetNamespace(reader.getNamespaceURI())) {
+          switch(reader.getLocalName()) {
+            case "row":
+              String r = reader.getAttributeValue(null, "r");
+              if(r != null) {
+                rowNum = Integer.parseInt(r) - 1;
+              }
+              colNum = firstColNum;
+              sink.startRow(rowNum);
+              break;
+            case "c":
+              String ref = reader.getAttributeValue(null, "r");
+              if(ref != null) {
+                colNum = columnIndex(ref);
+              }
+              type = reader.getAttributeValue(null, "t");
+              style = styleIndex(reader.getAttributeValue(null, "s"));
+              text.setLength(0);
+              break;
+            case "v":
+            case "t":
+              text.append(reader.getElementText());
+              break;
+            case "rPh":
+            case "phoneticPr":
+              //phonetic readings of an inline string aren't part of its value
+              skipElement(reader);
+              break;
+            case "f":
+              //only the cached result is wanted
+              reader.getElementText();
+              break;
+            case "dimension":
+              readDimension(reader.getAttributeValue(null, "ref"));
+              break;
+            default:
+          }
+        } else if(next == XMLStreamConstants.END_ELEMENT && isSpreadsheetNamespace(reader.getNamespaceURI())) {
+          String localName = reader.getLocalName();
+          if("c".equals(localName)) {
+            if(text.length() > 0) {
+              sink.value(colNum, cellValue(type, style, text.toString(), formatted));
+              cells++;
+            }
+            colNum++;
+          } else if("row".equals(localName)) {
+            sink.endRow();
+            rowNum++;
+            if(++rows == rowCacheSize) {
+              valuesParsed(event, start, rows, cells);
+              rows = 0;
+              cells = 0;
+              event = JfrEvents.ROW_BATCH.begin();
+              start = metrics == null ? 0 : System.nanoTime();
+            }
+          }
+        }
+      }
+      reader.close();
+    } catch(XMLStreamException e) {
+      throw new ParseException("Error reading XML stream", e);
+    }
+
+    valuesParsed(event, start, rows, cells);
+    if(metrics != null) {
+      metrics.finished();
+    }
+    if(progress != null) {
+      progress.finished(estimatedRows());
+    }
+  }
+
+  private void valuesParsed(JfrEvents.Event event, long start, int rows, int cells) {
+    if(event != null) {
+      event.commit(sheet == null ? null : sheet.getSheetName(), rows);
+    }
+    if(metrics != null) {
+      metrics.rowsParsed(rows, cells, System.nanoTime() - start);
+    }
+    if(progress != null) {
+      progress.rowsParsed(rows, estimatedRows());
+    }
+  }
+
+  private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+    // Precondition: pointing to start element;  Post condition: pointing to end element
+    int depth = 1;
+    while(depth > 0) {
+      int next = reader.next();
+      if(next == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if(next == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  private static int columnIndex(String ref) {
+    int column = 0;
+    for(int i = 0; i < ref.length(); i++) {
+      char c = ref.charAt(i);
+      if(c < 'A' || c > 'Z') {
+        break;
+      }
+      column = column * 26 + (c - 'A' + 1);
+    }
+    return column - 1;
+  }
+
+  private int styleIndex(String s) {
+    if(s == null) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(s);
+    } catch(NumberFormatException nfe) {
+      log.warn("Ignoring invalid style index {}", s);
+      return -1;
+    }
+  }
+
+  private String cellValue(String type, int style, String value, boolean formatted) {
+    switch(type == null ? "n" : type) {
+      case "s":           //string stored in shared table
+        int idx = Integer.parseInt(value);
+        return interner == null ? SharedStringSupplier.lookup(sst, idx) : interner.sharedString(sst, idx);
+      case "inlineStr":   //inline string (not in sst)
+      case "str":
+        //only escaped characters need decoding
+        return value.contains("_x") ? new XSSFRichTextString(value).toString() : value;
+      case "b":
+        return formatted ? ("1".equals(value) || "true".equals(value) ? "TRUE" : "FALSE") : value;
+      case "n":
+        return formatted ? formatNumber(style, value) : value;
+      default:
+        return value;
+    }
+  }
+
+  /**
+   * Formats a number the same way {@link #setFormatString(StartElement, StreamingCell)} and
+   * {@link #formattedContents()} would, looking each style's format up only once.
+   */
+  private String formatNumber(int style, String value) {
+    if(numericFormats == null) {
+      int styles = stylesTable.getNumCellStyles();
+      numericFormats = new String[styles];
+      numericFormatIndexes = new short[styles];
+    }
+    if(style < 0) {
+      if(stylesTable.getNumCellStyles() == 0) {
+        return value;
+      }
+      style = 0;
+    }
+
+    String format;
+    short formatIndex;
+    if(style < numericFormats.length && numericFormats[style] != null) {
+      format = numericFormats[style];
+      formatIndex = numericFormatIndexes[style];
+    } else {
+      XSSFCellStyle cellStyle = stylesTable.getStyleAt(style);
+      if(cellStyle == null) {
+        return value;
+      }
+      formatIndex = cellStyle.getDataFormat();
+      format = cellStyle.getDataFormatString();
+      if(format == null) {
+        format = BuiltinFormats.getBuiltinFormat(formatIndex);
+      }
+      if(format == null) {
+        return value;
+      }
+      if(style < numericFormats.length) {
+        numericFormats[style] = format;
+        numericFormatIndexes[style] = formatIndex;
+      }
+    }
+
+    if(formatIndex == 0 && isShortInteger(value)) {
+      //General shows these as they are
+      return value;
+    }
+    return dataFormatter.formatRawCellContents(Double.parseDouble(value), formatIndex, format, use1904Dates);
+  }
+
+  private static boolean isShortInteger(String value) {
+    if(value.length() > 10) {
+      return false;
+    }
+    for(int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if((c < '0' || c > '9') && !(c == '-' && i == 0 && value.length() > 1)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private XMLEventReader openParser() throws XMLStreamException {
+    return StaxHelper.newXMLInputFactory().createXMLEventReader(openData());
+  }
+
+  private InputStream openData() {
+    try {
+      InputStream is = source.open();
+      if(is == null) {
+        throw new ReadException("Unable to find data for sheet [" + sheet.getSheetName() + "]");
+      }
+      if(metrics != null) {
+        is = metrics.count(is);
+      }
+      if(progress != null) {
+        is = progress.count(is);
+      }
+      return is;
+    } catch(IOException e) {
+      throw new ReadException("Unable to read sheet data", e);
+    }
+  }
+
+  /**
+   * A dimension of just {@code A1} is what most writers put in when they don't know
+   * the size, so it isn't taken as a one row sheet.
+   */
+  private int estimatedRows() {
+    return lastRowNum > 0 ? lastRowNum + 1 : -1;
+  }
+
   private String[] splitCellRef(String ref) {
     int splitPos = -1;
 
@@ -171,24 +534,7 @@ public class StreamingSheetReader implements Iterable<Row> {
         }
       } else if("dimension".equals(tagLocalName)) {
         Attribute refAttr = startElement.getAttributeByName(new QName("ref"));
-        String ref = refAttr != null ? refAttr.getValue() : null;
-        if(ref != null) {
-          // ref is formatted as A1 or A1:F25. Take the last numbers of this string and use it as lastRowNum
-          for(int i = ref.length() - 1; i >= 0; i--) {
-            if(!Character.isDigit(ref.charAt(i))) {
-              try {
-                lastRowNum = Integer.parseInt(ref.substring(i + 1)) - 1;
-              } catch(NumberFormatException ignore) { }
-              break;
-            }
-          }
-          for(int i = 0; i < ref.length(); i++) {
-            if(!Character.isAlphabetic(ref.charAt(i))) {
-              firstColNum = CellReference.convertColStringToIndex(ref.substring(0, i));
-              break;
-            }
-          }
-        }
+        readDimension(refAttr != null ? refAttr.getValue() : null);
       } else if("f".equals(tagLocalName)) {
         if(currentCell != null) {
           currentCell.setFormulaType(true);
@@ -203,8 +549,9 @@ public class StreamingSheetReader implements Iterable<Row> {
       String tagLocalName = endElement.getName().getLocalPart();
 
       if("v".equals(tagLocalName) || "t".equals(tagLocalName)) {
-        currentCell.setRawContents(unformattedContents());
-        currentCell.setContentSupplier(formattedContents());
+        Supplier contents = formattedContents();
+        currentCell.setRawContents(unformattedContents(contents));
+        currentCell.setContentSupplier(contents);
       } else if("row".equals(tagLocalName) && currentRow != null) {
         rowCache.add(currentRow);
         currentRowNum++;
@@ -221,6 +568,26 @@ public class StreamingSheetReader implements Iterable<Row> {
     }
   }
 
+  private void readDimension(String ref) {
+    if(ref != null) {
+      // ref is formatted as A1 or A1:F25. Take the last numbers of this string and use it as lastRowNum
+      for(int i = ref.length() - 1; i >= 0; i--) {
+        if(!Character.isDigit(ref.charAt(i))) {
+          try {
+            lastRowNum = Integer.parseInt(ref.substring(i + 1)) - 1;
+          } catch(NumberFormatException ignore) { }
+          break;
+        }
+      }
+      for(int i = 0; i < ref.length(); i++) {
+        if(!Character.isAlphabetic(ref.charAt(i))) {
+          firstColNum = CellReference.convertColStringToIndex(ref.substring(0, i));
+          break;
+        }
+      }
+    }
+  }
+
   /**
    * Returns true if a tag is part of the main namespace for SpreadsheetML:
    * <ul>
@@ -233,8 +600,11 @@ public class StreamingSheetReader implements Iterable<Row> {
    * @return
    */
   private boolean isSpreadsheetTag(QName name) {
-    return (name.getNamespaceURI() != null
-        && name.getNamespaceURI().endsWith("/main"));
+    return isSpreadsheetNamespace(name.getNamespaceURI());
+  }
+
+  private static boolean isSpreadsheetNamespace(String namespaceURI) {
+    return namespaceURI != null && namespaceURI.endsWith("/main");
   }
 
   /**
@@ -315,13 +685,17 @@ public class StreamingSheetReader implements Iterable<Row> {
     switch(type) {
       case "s":           //string stored in shared table
         if(!lastContents.isEmpty()) {
-          int idx = Integer.parseInt(lastContents);
-          return new StringSupplier(sst.getItemAt(idx).toString());
+          SharedStringSupplier supplier = new SharedStringSupplier(sst, Integer.parseInt(lastContents), interner);
+          if(!deferSharedStrings) {
+            supplier.getContent();
+          }
+          return supplier;
         }
         return new StringSupplier(lastContents);
       case "inlineStr":   //inline string (not in sst)
       case "str":
-        return new StringSupplier(new XSSFRichTextString(lastContents).toString());
+        String value = new XSSFRichTextString(lastContents).toString();
+        return new StringSupplier(interner == null ? value : interner.inlineString(value));
       case "e":           //error type
         return new StringSupplier("ERROR:  " + lastContents);
       case "n":           //numeric type
@@ -357,20 +731,19 @@ public class StreamingSheetReader implements Iterable<Row> {
   }
 
   /**
-   * Returns the contents of the cell, with no formatting applied
+   * Returns the contents of the cell, with no formatting applied. Strings are taken from
+   * the formatted contents so that they're only looked up or decoded once, and shared
+   * strings only when they're first read.
    *
+   * @param formatted the formatted contents of the cell
    * @return
    */
-  String unformattedContents() {
+  Object unformattedContents(Supplier formatted) {
     switch(currentCell.getType()) {
       case "s":           //string stored in shared table
-        if(!lastContents.isEmpty()) {
-          int idx = Integer.parseInt(lastContents);
-          return sst.getItemAt(idx).toString();
-        }
-        return lastContents;
+        return formatted;
       case "inlineStr":   //inline string (not in sst)
-        return new XSSFRichTextString(lastContents).toString();
+        return formatted.getContent();
       default:
         return lastContents;
     }
@@ -389,8 +762,21 @@ public class StreamingSheetReader implements Iterable<Row> {
   }
 
   public void close() {
+    if(metrics != null) {
+      metrics.finished();
+    }
+    if(deferSharedStrings) {
+      //the table is closed along with the workbook, so rows still held need their strings now
+      for(Row row : rowCache) {
+        for(Cell cell : row) {
+          ((StreamingCell) cell).resolveSharedString();
+        }
+      }
+    }
     try {
-      parser.close();
+      if(parser != null) {
+        parser.close();
+      }
     } catch(XMLStreamException e) {
       throw new CloseException(e);
     }
@@ -17,6 +17,7 @@ import org.apache.poi.ss.usermodel.Workbook;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -126,6 +127,45 @@ public class StreamingWorkbook implements Workbook, AutoCloseable {
     return "veryHidden".equals(reader.getSheetProperties().get(sheetIx).get("state"));
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getNumberOfNames() {
+    return reader.getDefinedNames().size();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Name getName(String name) {
+    List<? extends Name> names = getNames(name);
+    return names.isEmpty() ? null : names.get(0);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<? extends Name> getNames(String name) {
+    List<Name> names = new ArrayList<>();
+    for(Name n : reader.getDefinedNames()) {
+      if(n.getNameName().equalsIgnoreCase(name)) {
+        names.add(n);
+      }
+    }
+    return names;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<? extends Name> getAllNames() {
+    return reader.getDefinedNames();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -289,38 +329,6 @@ public class StreamingWorkbook implements Workbook, AutoCloseable {
     throw new UnsupportedOperationException();
   }
 
-  /**
-   * Not supported
-   */
-  @Override
-  public int getNumberOfNames() {
-    throw new UnsupportedOperationException();
-  }
-
-  /**
-   * Not supported
-   */
-  @Override
-  public Name getName(String name) {
-    throw new UnsupportedOperationException();
-  }
-
-  /**
-   * Not supported
-   */
-  @Override
-  public List<? extends Name> getNames(String s) {
-    throw new UnsupportedOperationException();
-  }
-
-  /**
-   * Not supported
-   */
-  @Override
-  public List<? extends Name> getAllNames() {
-    throw new UnsupportedOperationException();
-  }
-
   /**
    * Not supported
    */
@@ -1,43 +1,64 @@
 package com.monitorjbl.xlsx.impl;
 
+import com.monitorjbl.xlsx.ReadProgress;
+import com.monitorjbl.xlsx.ReaderMetrics;
 import com.monitorjbl.xlsx.StreamingReader.Builder;
 import com.monitorjbl.xlsx.exceptions.OpenException;
 import com.monitorjbl.xlsx.exceptions.ReadException;
+import com.monitorjbl.xlsx.impl.ForwardOnlyPackage.Relationship;
 import com.monitorjbl.xlsx.sst.BufferedStringsTable;
+import com.monitorjbl.xlsx.sst.AppendableStringList;
+import com.monitorjbl.xlsx.sst.ByteArrayStringList;
+import com.monitorjbl.xlsx.sst.CompressedFileBackedList;
+import com.monitorjbl.xlsx.sst.FileBackedList;
+import com.monitorjbl.xlsx.sst.IndexedXmlStringList;
+import com.monitorjbl.xlsx.sst.OffHeapStringList;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
 import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackageRelationship;
+import org.apache.poi.openxml4j.opc.PackageRelationshipCollection;
+import org.apache.poi.openxml4j.opc.PackageRelationshipTypes;
+import org.apache.poi.openxml4j.opc.PackagingURIHelper;
+import org.apache.poi.openxml4j.opc.ZipPackagePart;
 import org.apache.poi.poifs.crypt.Decryptor;
 import org.apache.poi.poifs.crypt.EncryptionInfo;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.util.StaxHelper;
+import org.apache.poi.util.IOUtils;
 import org.apache.poi.xssf.eventusermodel.XSSFReader;
-import org.apache.poi.xssf.eventusermodel.XSSFReader.SheetIterator;
 import org.apache.poi.xssf.model.SharedStringsTable;
 import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.model.ThemesTable;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
-import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-import static com.monitorjbl.xlsx.XmlUtils.document;
-import static com.monitorjbl.xlsx.XmlUtils.searchForNodeList;
 import static com.monitorjbl.xlsx.impl.TempFileUtil.writeInputStreamToFile;
 import static java.util.Arrays.asList;
 
@@ -47,11 +68,17 @@ public class StreamingWorkbookReader implements Iterable<Sheet>, AutoCloseable {
   private final List<StreamingSheet> sheets;
   private final List<Map<String, String>> sheetProperties = new ArrayList<>();
   private final Builder builder;
+  private final StringInterner interner;
+  private final WorkbookMetrics metrics;
   private File tmp;
+  private File decrypted;
+  private POIFSFileSystem encrypted;
   private File sstCache;
   private OPCPackage pkg;
+  private ForwardOnlyPackage forwardOnlyPackage;
   private SharedStringsTable sst;
   private boolean use1904Dates = false;
+  private List<StreamingName> definedNames = Collections.emptyList();
 
   /**
    * This constructor exists only so the StreamingReader can instantiate
@@ -71,11 +98,15 @@ public class StreamingWorkbookReader implements Iterable<Sheet>, AutoCloseable {
     this.pkg = pkg;
     this.sheets = asList(new StreamingSheet(null, reader));
     this.builder = builder;
+    this.interner = null;
+    this.metrics = null;
   }
 
   public StreamingWorkbookReader(Builder builder) {
     this.sheets = new ArrayList<>();
     this.builder = builder;
+    this.interner = builder.getInternCapacity() > 0 ? new StringInterner(builder.getInternCapacity()) : null;
+    this.metrics = builder.getMetrics() == ReaderMetrics.NONE ? null : new WorkbookMetrics(builder.getMetrics());
   }
 
   public StreamingSheetReader first() {
@@ -83,97 +114,427 @@ public class StreamingWorkbookReader implements Iterable<Sheet>, AutoCloseable {
   }
 
   public void init(InputStream is) {
+    if(builder.isForwardOnly() && builder.getPassword() == null) {
+      initForwardOnly(is);
+      return;
+    }
+
     File f = null;
+    boolean initialized = false;
     try {
-      f = writeInputStreamToFile(is, builder.getBufferSize());
+      JfrEvents.Event phase = JfrEvents.WORKBOOK_PHASE.begin();
+      f = writeInputStreamToFile(is, builder.getBufferSize(), builder.getSpoolDirectory());
+      if(phase != null) {
+        phase.commit("spool to temp file");
+      }
       log.debug("Created temp file [" + f.getAbsolutePath() + "]");
 
-      init(f);
+      if(builder.isForwardOnly() && builder.isStreamingDecryption()) {
+        //The encrypted container needs random access, but the package inside it doesn't
+        encrypted = new POIFSFileSystem(f);
+        initForwardOnly(decryptedStream(encrypted));
+      } else {
+        init(f);
+      }
       tmp = f;
+      initialized = true;
     } catch(IOException e) {
       throw new ReadException("Unable to read input stream", e);
-    } catch(RuntimeException e) {
-      if(f != null) {
-        f.delete();
+    } catch(GeneralSecurityException e) {
+      throw new ReadException("Unable to read workbook - Decryption failed", e);
+    } finally {
+      //close() can't clean up after a failed open, as tmp is only set once it's succeeded
+      if(!initialized) {
+        if(encrypted != null) {
+          try {
+            encrypted.close();
+          } catch(IOException e) {
+            log.debug("Unable to close encrypted workbook after failed open", e);
+          }
+          encrypted = null;
+        }
+        if(f != null) {
+          f.delete();
+        }
       }
-      throw e;
     }
   }
 
   public void init(File f) {
-    try {
-      if(builder.getPassword() != null) {
-        // Based on: https://poi.apache.org/encryption.html
-        POIFSFileSystem poifs = new POIFSFileSystem(f);
-        EncryptionInfo info = new EncryptionInfo(poifs);
-        Decryptor d = Decryptor.getInstance(info);
-        d.verifyPassword(builder.getPassword());
-        pkg = OPCPackage.open(d.getDataStream(poifs));
+    init(() -> builder.getPassword() != null ? decrypt(new POIFSFileSystem(f)) : OPCPackage.open(f));
+  }
+
+  /**
+   * Reads the zip entries directly out of the buffer, without copying it to a temp file.
+   */
+  public void init(ByteBuffer buffer) {
+    init(() -> builder.getPassword() != null
+        ? decrypt(new POIFSFileSystem(Channels.newInputStream(new ByteBufferChannel(buffer))))
+        : OPCPackage.open(new MemoryZipEntrySource(buffer)));
+  }
+
+  /**
+   * Memory-maps the file and reads it like an in-memory workbook. Encrypted workbooks and
+   * files too large to map in one go are opened as a regular file instead.
+   */
+  public void init(Path path) {
+    MappedByteBuffer buffer;
+    try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if(builder.getPassword() != null || channel.size() > Integer.MAX_VALUE) {
+        buffer = null;
       } else {
-        pkg = OPCPackage.open(f);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+    } catch(IOException e) {
+      throw new OpenException("Failed to open file", e);
+    }
+
+    if(buffer == null) {
+      init(path.toFile());
+    } else {
+      init(buffer);
+    }
+  }
+
+  private void init(PackageSource source) {
+    boolean initialized = false;
+    try {
+      JfrEvents.Event phase = JfrEvents.WORKBOOK_PHASE.begin();
+      pkg = source.open();
+      if(phase != null) {
+        phase.commit("open package");
       }
 
       XSSFReader reader = new XSSFReader(pkg);
-      if(builder.getSstCacheSizeBytes() > 0) {
-        sstCache = Files.createTempFile("", "").toFile();
-        log.debug("Created sst cache file [" + sstCache.getAbsolutePath() + "]");
-        sst = BufferedStringsTable.getSharedStringsTable(sstCache, builder.getSstCacheSizeBytes(), pkg);
-      } else {
-        sst = reader.getSharedStringsTable();
+      List<PackagePart> sstParts = pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+      phase = JfrEvents.WORKBOOK_PHASE.begin();
+      if(!sstParts.isEmpty() && builder.isBackgroundSharedStrings() && !builder.isLazySharedStrings()) {
+        sst = loadSharedStringsInBackground(sstParts.get(0).getInputStream());
+      } else if(!sstParts.isEmpty()) {
+        try(InputStream sstData = sstParts.get(0).getInputStream()) {
+          sst = loadSharedStrings(sstData);
+        }
+      }
+      if(phase != null) {
+        phase.commit("shared strings");
       }
 
+      phase = JfrEvents.WORKBOOK_PHASE.begin();
       StylesTable styles = reader.getStylesTable();
-      NodeList workbookPr = searchForNodeList(document(reader.getWorkbookData()), "/ss:workbook/ss:workbookPr");
-      if(workbookPr.getLength() == 1) {
-        final Node date1904 = workbookPr.item(0).getAttributes().getNamedItem("date1904");
-        if(date1904 != null) {
-          use1904Dates = ("1".equals(date1904.getTextContent()));
-        }
+      if(phase != null) {
+        phase.commit("styles");
+      }
+
+      phase = JfrEvents.WORKBOOK_PHASE.begin();
+      WorkbookMetadata metadata;
+      try(InputStream workbookData = reader.getWorkbookData()) {
+        metadata = WorkbookMetadata.read(workbookData);
       }
+      use1904Dates = metadata.isUse1904Dates();
+      definedNames = metadata.getDefinedNames();
 
-      loadSheets(reader, sst, styles, builder.getRowCacheSize());
+      loadSheets(metadata, sst, styles, builder.getRowCacheSize());
+      if(phase != null) {
+        phase.commit("workbook and sheets");
+      }
+      initialized = true;
     } catch(IOException e) {
       throw new OpenException("Failed to open file", e);
     } catch(OpenXML4JException | XMLStreamException e) {
       throw new ReadException("Unable to read workbook", e);
     } catch(GeneralSecurityException e) {
       throw new ReadException("Unable to read workbook - Decryption failed", e);
+    } finally {
+      if(!initialized) {
+        closeQuietly();
+      }
     }
   }
 
-  void loadSheets(XSSFReader reader, SharedStringsTable sst, StylesTable stylesTable, int rowCacheSize)
-          throws IOException, InvalidFormatException, XMLStreamException {
-    lookupSheetNames(reader);
+  /**
+   * Opens the package inside an encrypted workbook. Unless streaming decryption is enabled,
+   * {@code OPCPackage} reads the decrypted package into memory in its entirety.
+   */
+  private OPCPackage decrypt(POIFSFileSystem poifs) throws IOException, InvalidFormatException, GeneralSecurityException {
+    try {
+      InputStream data = decryptedStream(poifs);
+      if(builder.isStreamingDecryption()) {
+        decrypted = writeInputStreamToFile(data, builder.getBufferSize(), builder.getSpoolDirectory());
+        log.debug("Created decrypted temp file [" + decrypted.getAbsolutePath() + "]");
+        return OPCPackage.open(decrypted);
+      }
+      return OPCPackage.open(data);
+    } finally {
+      poifs.close();
+    }
+  }
 
-    //Some workbooks have multiple references to the same sheet. Need to filter
-    //them out before creating the XMLEventReader by keeping track of their URIs.
-    //The sheets are listed in order, so we must keep track of insertion order.
-    SheetIterator iter = (SheetIterator) reader.getSheetsData();
-    Map<URI, InputStream> sheetStreams = new LinkedHashMap<>();
-    while(iter.hasNext()) {
-      InputStream is = iter.next();
-      sheetStreams.put(iter.getSheetPart().getPartName().getURI(), is);
+  private InputStream decryptedStream(POIFSFileSystem poifs) throws IOException, GeneralSecurityException {
+    // Based on: https://poi.apache.org/encryption.html
+    EncryptionInfo info = new EncryptionInfo(poifs);
+    Decryptor d = Decryptor.getInstance(info);
+    if(!d.verifyPassword(builder.getPassword())) {
+      throw new GeneralSecurityException("Incorrect password");
+    }
+    return d.getDataStream(poifs);
+  }
+
+  /**
+   * Reads the package straight off the stream. The workbook, styles and shared strings
+   * are loaded here, and each sheet is opened when its first row is requested.
+   */
+  void initForwardOnly(InputStream is) {
+    boolean initialized = false;
+    try {
+      JfrEvents.Event phase = JfrEvents.WORKBOOK_PHASE.begin();
+      forwardOnlyPackage = new ForwardOnlyPackage(is, builder.getBufferSize(), builder.getSpoolDirectory());
+      String workbookPart = forwardOnlyPackage.officeDocument();
+      if(workbookPart == null) {
+        throw new InvalidFormatException("Unable to find the workbook part");
+      }
+      Map<String, Relationship> rels = forwardOnlyPackage.relationships(workbookPart);
+
+      WorkbookMetadata metadata;
+      try(InputStream workbookData = forwardOnlyPackage.open(workbookPart)) {
+        if(workbookData == null) {
+          throw new InvalidFormatException("Unable to find the workbook part");
+        }
+        metadata = WorkbookMetadata.read(workbookData);
+      }
+      use1904Dates = metadata.isUse1904Dates();
+      definedNames = metadata.getDefinedNames();
+      if(phase != null) {
+        phase.commit("workbook");
+      }
+
+      String stylesPart = null;
+      String themePart = null;
+      String sstPart = null;
+      for(Relationship rel : rels.values()) {
+        if(rel.getType().endsWith("/styles")) {
+          stylesPart = rel.getTarget();
+        } else if(rel.getType().endsWith("/theme")) {
+          themePart = rel.getTarget();
+        } else if(rel.getType().endsWith("/sharedStrings")) {
+          sstPart = rel.getTarget();
+        }
+      }
+
+      Map<String, Map<String, String>> sheetParts = new LinkedHashMap<>();
+      for(Map<String, String> props : metadata.getSheetProperties()) {
+        Relationship rel = rels.get(props.get("id"));
+        if(rel == null) {
+          log.debug("Skipping sheet [" + props.get("name") + "] without a relationship to its data");
+        } else if(!sheetParts.containsKey(rel.getTarget())) {
+          sheetParts.put(rel.getTarget(), props);
+        }
+      }
+
+      List<String> dependencies = new ArrayList<>();
+      if(stylesPart != null) {
+        dependencies.add(stylesPart);
+      }
+      if(themePart != null) {
+        dependencies.add(themePart);
+      }
+      if(sstPart != null) {
+        dependencies.add(sstPart);
+      }
+      forwardOnlyPackage.retain(dependencies, sheetParts.keySet());
+
+      //Load shared strings, styles and theme in the order they appear in, so the SST never gets buffered
+      byte[] stylesData = null;
+      byte[] themeData = null;
+      String next;
+      while((next = forwardOnlyPackage.seek(dependencies)) != null) {
+        dependencies.remove(next);
+        phase = JfrEvents.WORKBOOK_PHASE.begin();
+        try(InputStream data = forwardOnlyPackage.open(next)) {
+          if(next.equals(stylesPart)) {
+            stylesData = IOUtils.toByteArray(data);
+          } else if(next.equals(themePart)) {
+            themeData = IOUtils.toByteArray(data);
+          } else {
+            sst = loadSharedStrings(data);
+          }
+        }
+        if(phase != null) {
+          phase.commit(next.equals(sstPart) ? "shared strings" : "read " + next);
+        }
+      }
+      phase = JfrEvents.WORKBOOK_PHASE.begin();
+      StylesTable styles = stylesData == null ? new StylesTable() : loadStyles(stylesData, themeData);
+      if(phase != null) {
+        phase.commit("styles");
+      }
+
+      for(Map.Entry<String, Map<String, String>> sheetPart : sheetParts.entrySet()) {
+        String partName = sheetPart.getKey();
+        sheetProperties.add(sheetPart.getValue());
+        StreamingSheetReader reader = new StreamingSheetReader(sst, styles, () -> forwardOnlyPackage.open(partName),
+            use1904Dates, builder.getRowCacheSize());
+        reader.setStringInterner(interner);
+        if(builder.isDeferSharedStrings()) {
+          reader.setDeferSharedStrings(true);
+        }
+        if(metrics != null) {
+          reader.setMetrics(metrics.sheet(sheetPart.getValue().get("name"), () -> forwardOnlyPackage.compressedSize(partName)));
+        }
+        if(builder.getProgress() != ReadProgress.NONE) {
+          reader.setProgress(new SheetProgress(builder.getProgress(), sheetPart.getValue().get("name"),
+              builder.getProgressIntervalMillis(), () -> forwardOnlyPackage.compressedSize(partName),
+              () -> forwardOnlyPackage.size(partName), () -> forwardOnlyPackage.compressedRead(partName)));
+        }
+        sheets.add(new StreamingSheet(sheetPart.getValue().get("name"), reader));
+      }
+      initialized = true;
+    } catch(IOException e) {
+      throw new ReadException("Unable to read input stream", e);
+    } catch(InvalidFormatException e) {
+      throw new ReadException("Unable to read workbook", e);
+    } finally {
+      if(!initialized) {
+        closeQuietly();
+      }
+    }
+  }
+
+  private void closeQuietly() {
+    try {
+      close();
+    } catch(IOException | RuntimeException e) {
+      log.debug("Unable to clean up after failed open", e);
+    }
+  }
+
+  /**
+   * A StylesTable can only be read without also getting POI's default styles when it's
+   * created from a PackagePart, so the data is staged in a throwaway in-memory package.
+   */
+  private static StylesTable loadStyles(byte[] stylesData, byte[] themeData) throws IOException, InvalidFormatException {
+    OPCPackage staging = OPCPackage.create(new ByteArrayOutputStream());
+    try {
+      StylesTable styles = new StylesTable(stagePart(staging, "/xl/styles.xml", XSSFRelation.STYLES, stylesData));
+      if(themeData != null) {
+        styles.setTheme(new ThemesTable(stagePart(staging, "/xl/theme/theme1.xml", XSSFRelation.THEME, themeData)));
+      }
+      return styles;
+    } finally {
+      staging.revert();
+    }
+  }
+
+  private static PackagePart stagePart(OPCPackage staging, String name, XSSFRelation relation, byte[] data)
+      throws IOException, InvalidFormatException {
+    PackagePart part = staging.createPart(PackagingURIHelper.createPartName(name), relation.getContentType());
+    try(OutputStream os = part.getOutputStream()) {
+      os.write(data);
+    }
+    return part;
+  }
+
+  private SharedStringsTable loadSharedStrings(InputStream is) throws IOException {
+    if(builder.isLazySharedStrings()) {
+      sstCache = Files.createTempFile("", "").toFile();
+      log.debug("Created sst index file [" + sstCache.getAbsolutePath() + "]");
+      return BufferedStringsTable.getSharedStringsTable(
+          IndexedXmlStringList.index(is, sstCache, Math.max(builder.getSstCacheSizeBytes(), 0)));
+    }
+
+    AppendableStringList list = newStringList();
+    if(list != null) {
+      return BufferedStringsTable.getSharedStringsTable(list, is);
+    }
+    SharedStringsTable table = new SharedStringsTable();
+    table.readFrom(is);
+    return table;
+  }
+
+  /**
+   * Starts loading the shared strings, which closes the stream once it's done.
+   */
+  private SharedStringsTable loadSharedStringsInBackground(InputStream is) throws IOException {
+    try {
+      AppendableStringList list = newStringList();
+      return BufferedStringsTable.loadInBackground(list == null ? new ByteArrayStringList(0) : list, is);
+    } catch(IOException | RuntimeException e) {
+      is.close();
+      throw e;
     }
+  }
 
-    //Iterate over the loaded streams
-    int i = 0;
-    for(URI uri : sheetStreams.keySet()) {
-      XMLEventReader parser = StaxHelper.newXMLInputFactory().createXMLEventReader(sheetStreams.get(uri));
-      sheets.add(new StreamingSheet(sheetProperties.get(i++).get("name"), new StreamingSheetReader(sst, stylesTable, parser, use1904Dates, rowCacheSize)));
+  /**
+   * @return where the shared strings should be kept, or null to leave them to POI
+   */
+  private AppendableStringList newStringList() throws IOException {
+    if(builder.getOffHeapSharedStringsBytes() > 0) {
+      sstCache = Files.createTempFile("", "").toFile();
+      log.debug("Created sst overflow file [" + sstCache.getAbsolutePath() + "]");
+      return new OffHeapStringList(builder.getOffHeapSharedStringsBytes(), sstCache,
+          Math.max(builder.getSstCacheSizeBytes(), 0));
+    } else if(builder.isCompactSharedStrings()) {
+      return new ByteArrayStringList(Math.max(builder.getSstCacheSizeBytes(), 0));
+    } else if(builder.getSstCacheSizeBytes() > 0) {
+      sstCache = Files.createTempFile("", "").toFile();
+      log.debug("Created sst cache file [" + sstCache.getAbsolutePath() + "]");
+      if(builder.isCompressSharedStrings()) {
+        return new CompressedFileBackedList(sstCache, builder.getSstCacheSizeBytes());
+      }
+      return new FileBackedList(sstCache, builder.getSstCacheSizeBytes());
     }
+    return null;
   }
 
-  void lookupSheetNames(XSSFReader reader) throws IOException, InvalidFormatException {
+  void loadSheets(WorkbookMetadata metadata, SharedStringsTable sst, StylesTable stylesTable, int rowCacheSize)
+          throws IOException, InvalidFormatException, XMLStreamException {
     sheetProperties.clear();
-    NodeList nl = searchForNodeList(document(reader.getWorkbookData()), "/ss:workbook/ss:sheets/ss:sheet");
-    for(int i = 0; i < nl.getLength(); i++) {
-      Map<String, String> props = new HashMap<>();
-      props.put("name", nl.item(i).getAttributes().getNamedItem("name").getTextContent());
+    PackagePart workbookPart = workbookPart();
+
+    //Some workbooks have multiple references to the same sheet. Need to filter
+    //them out before creating the XMLEventReader by keeping track of their URIs.
+    Set<URI> sheetUris = new HashSet<>();
+    for(Map<String, String> props : metadata.getSheetProperties()) {
+      PackageRelationship rel = props.get("id") == null ? null : workbookPart.getRelationship(props.get("id"));
+      if(rel == null) {
+        log.debug("Skipping sheet [" + props.get("name") + "] without a relationship to its data");
+        continue;
+      }
+      PackagePart part = pkg.getPart(PackagingURIHelper.createPartName(rel.getTargetURI()));
+      if(part == null || !sheetUris.add(part.getPartName().getURI())) {
+        continue;
+      }
 
-      Node state = nl.item(i).getAttributes().getNamedItem("state");
-      props.put("state", state == null ? "visible" : state.getTextContent());
+      //opened now so that a missing entry shows up straight away, but only parsed once
+      //it's read from, which can be either as rows or as values
+      InputStream data = part.getInputStream();
+      long compressedBytes = part instanceof ZipPackagePart ? ((ZipPackagePart) part).getZipArchive().getCompressedSize() : -1;
       sheetProperties.add(props);
+      StreamingSheetReader reader = new StreamingSheetReader(sst, stylesTable, () -> data, use1904Dates, rowCacheSize);
+      reader.setStringInterner(interner);
+      if(builder != null && builder.isDeferSharedStrings()) {
+        reader.setDeferSharedStrings(true);
+      }
+      if(metrics != null) {
+        reader.setMetrics(metrics.sheet(props.get("name"), () -> compressedBytes));
+      }
+      if(builder != null && builder.getProgress() != ReadProgress.NONE) {
+        long inflatedBytes = part instanceof ZipPackagePart ? ((ZipPackagePart) part).getZipArchive().getSize() : -1;
+        reader.setProgress(new SheetProgress(builder.getProgress(), props.get("name"), builder.getProgressIntervalMillis(),
+            () -> compressedBytes, () -> inflatedBytes, () -> -1));
+      }
+      sheets.add(new StreamingSheet(props.get("name"), reader));
+    }
+  }
+
+  private PackagePart workbookPart() throws InvalidFormatException {
+    PackageRelationshipCollection rels = pkg.getRelationshipsByType(PackageRelationshipTypes.CORE_DOCUMENT);
+    if(rels.size() == 0) {
+      rels = pkg.getRelationshipsByType(PackageRelationshipTypes.STRICT_CORE_DOCUMENT);
+    }
+    if(rels.size() == 0) {
+      throw new InvalidFormatException("Unable to find the workbook part");
     }
+    return pkg.getPart(rels.getRelationship(0));
   }
 
   List<? extends Sheet> getSheets() {
@@ -184,6 +545,10 @@ public class StreamingWorkbookReader implements Iterable<Sheet>, AutoCloseable {
     return sheetProperties;
   }
 
+  public List<StreamingName> getDefinedNames() {
+    return definedNames;
+  }
+
   @Override
   public Iterator<Sheet> iterator() {
     return new StreamingSheetIterator(sheets.iterator());
@@ -192,27 +557,65 @@ public class StreamingWorkbookReader implements Iterable<Sheet>, AutoCloseable {
   @Override
   public void close() throws IOException {
     try {
-      for(StreamingSheet sheet : sheets) {
-        sheet.getReader().close();
+      try {
+        for(StreamingSheet sheet : sheets) {
+          sheet.getReader().close();
+        }
+      } finally {
+        //stops the background loader, if there is one, before what it reads from is closed
+        if(sst instanceof BufferedStringsTable) {
+          ((BufferedStringsTable) sst).close();
+        }
+      }
+      if(pkg != null) {
+        pkg.revert();
+      }
+      if(forwardOnlyPackage != null) {
+        if(metrics != null) {
+          for(File f : forwardOnlyPackage.tempFiles()) {
+            metrics.tempFileWritten(f);
+          }
+        }
+        forwardOnlyPackage.close();
+      }
+      if(encrypted != null) {
+        encrypted.close();
       }
-      pkg.revert();
     } finally {
+      if(metrics != null) {
+        metrics.tempFileWritten(decrypted);
+        metrics.tempFileWritten(tmp);
+        metrics.sharedStringsClosed(sst);
+      }
+      if(decrypted != null) {
+        if(log.isDebugEnabled()) {
+          log.debug("Deleting decrypted tmp file [" + decrypted.getAbsolutePath() + "]");
+        }
+        decrypted.delete();
+      }
       if(tmp != null) {
         if(log.isDebugEnabled()) {
           log.debug("Deleting tmp file [" + tmp.getAbsolutePath() + "]");
         }
         tmp.delete();
       }
-      if(sst instanceof BufferedStringsTable) {
+      if(sstCache != null) {
+        if(metrics != null) {
+          metrics.tempFileWritten(sstCache);
+        }
         if(log.isDebugEnabled()) {
           log.debug("Deleting sst cache file [" + this.sstCache.getAbsolutePath() + "]");
         }
-        ((BufferedStringsTable) sst).close();
         sstCache.delete();
       }
     }
   }
 
+
+  private interface PackageSource {
+    OPCPackage open() throws IOException, OpenXML4JException, GeneralSecurityException;
+  }
+
   static class StreamingSheetIterator implements Iterator<Sheet> {
     private final Iterator<StreamingSheet> iterator;
 
@@ -0,0 +1,65 @@
+package com.monitorjbl.xlsx.impl;
+
+import org.apache.poi.xssf.model.SharedStringsTable;
+
+/**
+ * Hands out one canonical {@code String} instance per shared string, and per short
+ * inline string, so that repeated values across a sheet are the same object rather
+ * than a copy for every cell.
+ * <p>
+ * Both tables are fixed-size and direct-mapped: a value that lands on a slot that's
+ * already taken replaces what was there. That keeps memory bounded and lookups
+ * lock-free, at the cost of the odd duplicate when two frequent values collide.
+ * Slots are only ever replaced whole, so sheets can be read from several threads.
+ */
+class StringInterner {
+  /**
+   * Longer inline strings are unlikely to repeat, and not worth hashing.
+   */
+  static final int MAX_INLINE_LENGTH = 64;
+
+  private final SharedEntry[] shared;
+  private final String[] inline;
+  private final int mask;
+
+  StringInterner(int capacity) {
+    int size = Integer.highestOneBit(Math.min(Math.max(capacity - 1, 1), 1 << 29)) << 1;
+    this.shared = new SharedEntry[size];
+    this.inline = new String[size];
+    this.mask = size - 1;
+  }
+
+  String sharedString(SharedStringsTable sst, int idx) {
+    int slot = idx & mask;
+    SharedEntry entry = shared[slot];
+    if(entry == null || entry.idx != idx) {
+      entry = new SharedEntry(idx, SharedStringSupplier.lookup(sst, idx));
+      shared[slot] = entry;
+    }
+    return entry.value;
+  }
+
+  String inlineString(String value) {
+    if(value.length() > MAX_INLINE_LENGTH) {
+      return value;
+    }
+    int hash = value.hashCode();
+    int slot = (hash ^ (hash >>> 16)) & mask;
+    String canonical = inline[slot];
+    if(value.equals(canonical)) {
+      return canonical;
+    }
+    inline[slot] = value;
+    return value;
+  }
+
+  private static final class SharedEntry {
+    final int idx;
+    final String value;
+
+    SharedEntry(int idx, String value) {
+      this.idx = idx;
+      this.value = value;
+    }
+  }
+}
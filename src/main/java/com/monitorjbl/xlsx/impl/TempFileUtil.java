@@ -1,23 +1,75 @@
 package com.monitorjbl.xlsx.impl;
 
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 public class TempFileUtil {
     public static File writeInputStreamToFile(InputStream is, int bufferSize) throws IOException {
-        File f = Files.createTempFile("tmp-", ".xlsx").toFile();
-        try(FileOutputStream fos = new FileOutputStream(f)) {
-            int read;
-            byte[] bytes = new byte[bufferSize];
-            while((read = is.read(bytes)) != -1) {
-                fos.write(bytes, 0, read);
+        return writeInputStreamToFile(is, bufferSize, null);
+    }
+
+    /**
+     * Copies a stream into a new temp file. Streams over regular files are copied by
+     * the OS with {@link FileChannel#transferFrom}, anything else goes through a
+     * buffer of {@code bufferSize} bytes.
+     *
+     * @param is         stream to copy, closed once it has been read
+     * @param bufferSize size of the copy buffer
+     * @param directory  directory to create the file in, or null for the default temp directory
+     * @return the temp file
+     * @throws IOException if the stream can't be read or the file can't be written
+     */
+    public static File writeInputStreamToFile(InputStream is, int bufferSize, File directory) throws IOException {
+        Path path = directory == null
+                ? Files.createTempFile("tmp-", ".xlsx")
+                : Files.createTempFile(directory.toPath(), "tmp-", ".xlsx");
+        try(FileChannel out = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            if(!(is.getClass() == FileInputStream.class && transfer(((FileInputStream) is).getChannel(), out))) {
+                copy(is, out, bufferSize);
             }
-            return f;
+            return path.toFile();
+        } catch(IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
         } finally {
             is.close();
         }
     }
-}
\ No newline at end of file
+
+    private static boolean transfer(FileChannel in, FileChannel out) throws IOException {
+        try {
+            //Pipes and devices can't be transferred from directly, and fail here without consuming anything
+            in.position();
+            in.size();
+        } catch(IOException e) {
+            return false;
+        }
+
+        long written = 0;
+        long count;
+        while((count = out.transferFrom(in, written, Long.MAX_VALUE)) > 0) {
+            written += count;
+        }
+        return true;
+    }
+
+    private static void copy(InputStream is, FileChannel out, int bufferSize) throws IOException {
+        byte[] bytes = new byte[bufferSize];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int read;
+        while((read = is.read(bytes)) != -1) {
+            buffer.clear();
+            buffer.limit(read);
+            while(buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.monitorjbl.xlsx.impl;
+
+import java.io.IOException;
+
+/**
+ * Receives the values of a sheet as text, row by row, when they're read without
+ * building rows and cells.
+ *
+ * @see StreamingSheet#readValues(boolean, ValueSink)
+ */
+public interface ValueSink {
+  /**
+   * @param rowIndex 0-based index of the row. Rows that have no data in the sheet are skipped.
+   */
+  void startRow(int rowIndex) throws IOException;
+
+  /**
+   * Called for each cell of the current row that has a value, in the order they're
+   * stored, which is normally left to right.
+   *
+   * @param columnIndex 0-based index of the column
+   * @param value       the cell's value
+   */
+  void value(int columnIndex, String value) throws IOException;
+
+  void endRow() throws IOException;
+}
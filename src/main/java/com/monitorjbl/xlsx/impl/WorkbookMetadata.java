@@ -0,0 +1,134 @@
+package com.monitorjbl.xlsx.impl;
+
+import com.monitorjbl.xlsx.exceptions.ParseException;
+import org.apache.poi.util.StaxHelper;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything the reader needs out of {@code workbook.xml}, collected in a single
+ * streaming pass: sheet names, states and relationship ids, the 1904 date system
+ * flag and any defined names.
+ */
+public class WorkbookMetadata {
+  private final List<Map<String, String>> sheetProperties = new ArrayList<>();
+  private final List<StreamingName> definedNames = new ArrayList<>();
+  private boolean use1904Dates = false;
+
+  private WorkbookMetadata() {
+  }
+
+  public static WorkbookMetadata read(InputStream is) {
+    WorkbookMetadata metadata = new WorkbookMetadata();
+    try {
+      XMLEventReader parser = StaxHelper.newXMLInputFactory().createXMLEventReader(is);
+      try {
+        metadata.parse(parser);
+      } finally {
+        parser.close();
+      }
+    } catch(XMLStreamException e) {
+      throw new ParseException("Unable to read workbook metadata", e);
+    }
+    return metadata;
+  }
+
+  private void parse(XMLEventReader parser) throws XMLStreamException {
+    while(parser.hasNext()) {
+      XMLEvent event = parser.nextEvent();
+      if(event.getEventType() == XMLStreamConstants.DTD) {
+        //Same policy as POI's DocumentHelper: a DOCTYPE has no business in a workbook
+        throw new ParseException("DOCTYPE is not allowed in workbook.xml");
+      } else if(event.isStartElement() && isSpreadsheetTag(event.asStartElement())) {
+        StartElement startElement = event.asStartElement();
+        String tagLocalName = startElement.getName().getLocalPart();
+
+        if("workbookPr".equals(tagLocalName)) {
+          use1904Dates = isTrue(attribute(startElement, "date1904"));
+        } else if("sheet".equals(tagLocalName)) {
+          Map<String, String> props = new HashMap<>();
+          props.put("name", attribute(startElement, "name"));
+          String state = attribute(startElement, "state");
+          props.put("state", state == null ? "visible" : state);
+          props.put("id", relationshipId(startElement));
+          sheetProperties.add(props);
+        } else if("definedName".equals(tagLocalName)) {
+          String localSheetId = attribute(startElement, "localSheetId");
+          definedNames.add(new StreamingName(
+              attribute(startElement, "name"),
+              parser.getElementText(),
+              localSheetId == null ? -1 : Integer.parseInt(localSheetId),
+              isTrue(attribute(startElement, "hidden")),
+              isTrue(attribute(startElement, "function")),
+              attribute(startElement, "comment")));
+        }
+      } else if(event.isEndElement() && "definedNames".equals(event.asEndElement().getName().getLocalPart())) {
+        //Nothing after the defined names is of any interest
+        break;
+      }
+    }
+
+    for(StreamingName name : definedNames) {
+      if(name.getSheetIndex() >= 0 && name.getSheetIndex() < sheetProperties.size()) {
+        name.setSheetName(sheetProperties.get(name.getSheetIndex()).get("name"));
+      }
+    }
+  }
+
+  /**
+   * @return name, state and relationship id ({@code "name"}, {@code "state"}, {@code "id"})
+   * of each sheet, in workbook order
+   */
+  public List<Map<String, String>> getSheetProperties() {
+    return sheetProperties;
+  }
+
+  public List<StreamingName> getDefinedNames() {
+    return definedNames;
+  }
+
+  public boolean isUse1904Dates() {
+    return use1904Dates;
+  }
+
+  private static String attribute(StartElement startElement, String localName) {
+    Attribute attr = startElement.getAttributeByName(new QName(localName));
+    return attr == null ? null : attr.getValue();
+  }
+
+  /**
+   * The sheet's {@code r:id} attribute. Transitional and strict OOXML use different
+   * namespaces for relationships, so match on the local name alone.
+   */
+  private static String relationshipId(StartElement startElement) {
+    Iterator<?> attributes = startElement.getAttributes();
+    while(attributes.hasNext()) {
+      Attribute attr = (Attribute) attributes.next();
+      if("id".equals(attr.getName().getLocalPart()) && !attr.getName().getNamespaceURI().isEmpty()) {
+        return attr.getValue();
+      }
+    }
+    return null;
+  }
+
+  private static boolean isTrue(String value) {
+    return "1".equals(value) || "true".equals(value);
+  }
+
+  private static boolean isSpreadsheetTag(StartElement startElement) {
+    String namespace = startElement.getName().getNamespaceURI();
+    return namespace != null && namespace.endsWith("/main");
+  }
+}
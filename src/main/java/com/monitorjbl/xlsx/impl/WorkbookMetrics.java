@@ -0,0 +1,98 @@
+package com.monitorjbl.xlsx.impl;
+
+import com.monitorjbl.xlsx.ReaderMetrics;
+import com.monitorjbl.xlsx.sst.BufferedStringsTable;
+import com.monitorjbl.xlsx.sst.StringList;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.model.SharedStringsTable;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Gathers the figures for a {@link ReaderMetrics} while a workbook is read. Readers
+ * only hold one of these when a listener is configured, so none of the counting
+ * happens otherwise.
+ */
+class WorkbookMetrics {
+  private final ReaderMetrics listener;
+  private final long openedAt = System.nanoTime();
+  private final AtomicBoolean firstRow = new AtomicBoolean();
+
+  WorkbookMetrics(ReaderMetrics listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * @param sheetName       name of the sheet
+   * @param compressedBytes size of the sheet's entry in the package, or -1 if it isn't known
+   * @return the metrics for one sheet
+   */
+  Sheet sheet(String sheetName, LongSupplier compressedBytes) {
+    return new Sheet(sheetName, compressedBytes);
+  }
+
+  void tempFileWritten(File file) {
+    if(file != null && file.exists()) {
+      listener.tempFileWritten(file.length());
+    }
+  }
+
+  void sharedStringsClosed(SharedStringsTable sst) {
+    if(sst instanceof BufferedStringsTable) {
+      StringList list = ((BufferedStringsTable) sst).getStringList();
+      listener.sharedStringLookups(list.getCacheHitCount(), list.getCacheMissCount(), list.getDiskReadCount());
+    }
+  }
+
+  class Sheet {
+    private final String sheetName;
+    private final LongSupplier compressedBytes;
+    private CountingInputStream data;
+    private boolean finished;
+
+    private Sheet(String sheetName, LongSupplier compressedBytes) {
+      this.sheetName = sheetName;
+      this.compressedBytes = compressedBytes;
+    }
+
+    /**
+     * Counts the sheet's XML as it's read.
+     */
+    InputStream count(InputStream is) {
+      data = new CountingInputStream(is);
+      return data;
+    }
+
+    void rowsParsed(List<Row> rows, long nanos) {
+      int cells = 0;
+      for(Row row : rows) {
+        cells += ((StreamingRow) row).getCellMap().size();
+      }
+      rowsParsed(rows.size(), cells, nanos);
+    }
+
+    void rowsParsed(int rows, int cells, long nanos) {
+      if(rows == 0) {
+        return;
+      }
+      if(firstRow.compareAndSet(false, true)) {
+        listener.firstRow(sheetName, System.nanoTime() - openedAt);
+      }
+      listener.rowsParsed(sheetName, rows, cells, nanos);
+    }
+
+    /**
+     * Reports how much of the sheet was read, the first time it's called after the data was opened.
+     */
+    void finished() {
+      if(data != null && !finished) {
+        finished = true;
+        listener.sheetRead(sheetName, compressedBytes.getAsLong(), data.getCount());
+      }
+    }
+  }
+}
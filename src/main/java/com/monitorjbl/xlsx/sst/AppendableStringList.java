@@ -0,0 +1,10 @@
+package com.monitorjbl.xlsx.sst;
+
+/**
+ * A {@link StringList} that's filled in one string at a time, as the shared strings
+ * table is parsed.
+ */
+public interface AppendableStringList extends StringList {
+
+  void add(String str);
+}
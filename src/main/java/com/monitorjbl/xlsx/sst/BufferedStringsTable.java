@@ -1,5 +1,7 @@
 package com.monitorjbl.xlsx.sst;
 
+import com.monitorjbl.xlsx.exceptions.ParseException;
+import com.monitorjbl.xlsx.impl.JfrEvents;
 import org.apache.poi.openxml4j.opc.OPCPackage;
 import org.apache.poi.openxml4j.opc.PackagePart;
 import org.apache.poi.ss.usermodel.RichTextString;
@@ -15,9 +17,30 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class BufferedStringsTable extends SharedStringsTable implements AutoCloseable {
-  private final FileBackedList list;
+  private static final Pattern UTF_PATTERN = Pattern.compile("_x([0-9A-Fa-f]{4})_");
+
+  private final StringList list;
+  /**
+   * The same list, if strings can be read into it
+   */
+  private final AppendableStringList appendable;
+  private final boolean background;
+  private final Lock lock = new ReentrantLock();
+  private final Condition progress = lock.newCondition();
+
+  private Thread loader;
+  private volatile int loaded;
+  private volatile int awaited = Integer.MAX_VALUE;
+  private volatile boolean loading;
+  private volatile boolean closed;
+  private volatile Exception failure;
 
   public static BufferedStringsTable getSharedStringsTable(File tmp, int cacheSizeBytes, OPCPackage pkg)
       throws IOException {
@@ -25,13 +48,75 @@ public class BufferedStringsTable extends SharedStringsTable implements AutoClos
     return parts.size() == 0 ? null : new BufferedStringsTable(parts.get(0), tmp, cacheSizeBytes);
   }
 
+  public static BufferedStringsTable getSharedStringsTable(File tmp, int cacheSizeBytes, InputStream is)
+      throws IOException {
+    return new BufferedStringsTable(is, tmp, cacheSizeBytes);
+  }
+
+  /**
+   * Reads the shared strings from a stream into the given list. The list is closed along
+   * with the table, or right away if the strings can't be read.
+   */
+  public static BufferedStringsTable getSharedStringsTable(AppendableStringList list, InputStream is) throws IOException {
+    return new BufferedStringsTable(is, list);
+  }
+
+  /**
+   * Reads the shared strings from a stream into the given list on a background thread,
+   * and returns right away. Looking up a string that hasn't been read yet blocks until
+   * it has. The stream is closed once it's been read, and the list along with the table.
+   */
+  public static BufferedStringsTable loadInBackground(AppendableStringList list, InputStream is) {
+    BufferedStringsTable table = new BufferedStringsTable(list, list, true);
+    table.loading = true;
+    table.loader = new Thread(() -> table.load(is), "xlsx-sst-loader");
+    table.loader.setDaemon(true);
+    table.loader.start();
+    return table;
+  }
+
+  /**
+   * Wraps a list that already holds the shared strings, such as an {@link IndexedXmlStringList}.
+   * The list is closed along with the table.
+   */
+  public static BufferedStringsTable getSharedStringsTable(StringList list) {
+    return new BufferedStringsTable(list, null, false);
+  }
+
   private BufferedStringsTable(PackagePart part, File file, int cacheSizeBytes) throws IOException {
-    this.list = new FileBackedList(file, cacheSizeBytes);
-    readFrom(part.getInputStream());
+    this(part.getInputStream(), new FileBackedList(file, cacheSizeBytes));
+  }
+
+  private BufferedStringsTable(InputStream is, File file, int cacheSizeBytes) throws IOException {
+    this(is, new FileBackedList(file, cacheSizeBytes));
   }
 
+  private BufferedStringsTable(StringList list, AppendableStringList appendable, boolean background) {
+    this.list = list;
+    this.appendable = appendable;
+    this.background = background;
+  }
+
+  private BufferedStringsTable(InputStream is, AppendableStringList list) throws IOException {
+    this(list, list, false);
+    try {
+      readFrom(is);
+    } catch(IOException | RuntimeException e) {
+      list.close();
+      throw e;
+    }
+  }
+
+  /**
+   * @throws IllegalStateException if the table wraps a list that can't be added to
+   */
   @Override
   public void readFrom(InputStream is) throws IOException {
+    if(appendable == null) {
+      throw new IllegalStateException("Shared strings table wraps a " + list.getClass().getSimpleName() + ", which can't be added to");
+    }
+    JfrEvents.Event event = JfrEvents.SHARED_STRINGS_LOAD.begin();
+    int before = list.size();
     try {
       XMLEventReader xmlEventReader = StaxHelper.newXMLInputFactory().createXMLEventReader(is);
 
@@ -39,20 +124,115 @@ public class BufferedStringsTable extends SharedStringsTable implements AutoClos
         XMLEvent xmlEvent = xmlEventReader.nextEvent();
 
         if(xmlEvent.isStartElement() && xmlEvent.asStartElement().getName().getLocalPart().equals("si")) {
-          list.add(parseCT_Rst(xmlEventReader));
+          appendable.add(parseCT_Rst(xmlEventReader));
+          if(loading) {
+            publish();
+          }
         }
       }
     } catch(XMLStreamException e) {
       throw new IOException(e);
+    } finally {
+      if(event != null) {
+        event.commit(list.size() - before, background);
+      }
+    }
+  }
+
+  private void load(InputStream is) {
+    try(InputStream stream = is) {
+      readFrom(stream);
+    } catch(Exception e) {
+      if(!closed) {
+        failure = e;
+      }
+    } finally {
+      lock.lock();
+      try {
+        loaded = list.size();
+        loading = false;
+        progress.signalAll();
+      } finally {
+        lock.unlock();
+      }
     }
   }
 
+  /**
+   * Makes the strings read so far visible to lookups, and wakes up any waiting on them.
+   */
+  private void publish() throws IOException {
+    if(closed) {
+      throw new IOException("Shared strings table was closed while loading");
+    }
+    int size = list.size();
+    loaded = size;
+    if(size > awaited) {
+      lock.lock();
+      try {
+        awaited = Integer.MAX_VALUE;
+        progress.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Waits for the string at {@code idx} if it's still being loaded, and throws if loading
+   * failed before getting to it.
+   */
+  private void checkLoaded(int idx) {
+    if(loading && idx >= loaded) {
+      await(idx);
+    }
+    if(failure != null && idx >= loaded) {
+      throw new ParseException("Unable to read shared strings", failure);
+    }
+  }
+
+  /**
+   * Blocks until the string at {@code idx} has been read, or all of them have.
+   */
+  private void await(int idx) {
+    lock.lock();
+    try {
+      while(loading && idx >= loaded) {
+        //the loader checks this after publishing each string, so it either sees it or we see the string
+        awaited = Math.min(awaited, idx);
+        if(loading && idx >= loaded) {
+          progress.await();
+        }
+      }
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ParseException("Interrupted while waiting for shared strings to load", e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return whether the strings are read on a background thread, and might not all be
+   * available yet
+   */
+  public boolean isLoadedInBackground() {
+    return background;
+  }
+
+  /**
+   * @return where the strings are kept
+   */
+  public StringList getStringList() {
+    return list;
+  }
+
   /**
    * Parses a {@code <si>} String Item. Returns just the text and drops the formatting. See <a
    * href="https://msdn.microsoft.com/en-us/library/documentformat.openxml.spreadsheet.sharedstringitem.aspx">xmlschema
    * type {@code CT_Rst}</a>.
    */
-  private String parseCT_Rst(XMLEventReader xmlEventReader) throws XMLStreamException {
+  static String parseCT_Rst(XMLEventReader xmlEventReader) throws XMLStreamException {
     // Precondition: pointing to <si>;  Post condition: pointing to </si>
     StringBuilder buf = new StringBuilder();
     XMLEvent xmlEvent;
@@ -80,7 +260,7 @@ public class BufferedStringsTable extends SharedStringsTable implements AutoClos
    * href="https://msdn.microsoft.com/en-us/library/documentformat.openxml.spreadsheet.run.aspx">xmlschema
    * type {@code CT_RElt}</a>.
    */
-  private void parseCT_RElt(XMLEventReader xmlEventReader, StringBuilder buf) throws XMLStreamException {
+  private static void parseCT_RElt(XMLEventReader xmlEventReader, StringBuilder buf) throws XMLStreamException {
     // Precondition: pointing to <r>;  Post condition: pointing to </r>
     XMLEvent xmlEvent;
     while((xmlEvent = xmlEventReader.nextTag()).isStartElement()) {
@@ -97,21 +277,72 @@ public class BufferedStringsTable extends SharedStringsTable implements AutoClos
     }
   }
 
-  private void skipElement(XMLEventReader xmlEventReader) throws XMLStreamException {
+  private static void skipElement(XMLEventReader xmlEventReader) throws XMLStreamException {
     // Precondition: pointing to start element;  Post condition: pointing to end element
-    while(xmlEventReader.nextTag().isStartElement()) {
-      skipElement(xmlEventReader); // recursively skip over child
+    // Children can hold text, e.g. the <t> of a phonetic run, so nextTag() can't be used
+    int depth = 1;
+    while(depth > 0) {
+      XMLEvent xmlEvent = xmlEventReader.nextEvent();
+      if(xmlEvent.isStartElement()) {
+        depth++;
+      } else if(xmlEvent.isEndElement()) {
+        depth--;
+      }
     }
   }
 
   @Override
   public RichTextString getItemAt(int idx) {
+    checkLoaded(idx);
     return new XSSFRichTextString(list.getAt(idx));
   }
 
+  /**
+   * Looks up the text of a shared string without wrapping it in a {@link RichTextString}
+   * first. Characters escaped as {@code _xHHHH_} are decoded the same way as by
+   * {@link XSSFRichTextString#getString()}.
+   *
+   * @param idx index of the string
+   * @return the text of the string
+   */
+  public String getString(int idx) {
+    checkLoaded(idx);
+    return utfDecode(list.getAt(idx));
+  }
+
+  private static String utfDecode(String value) {
+    if(!value.contains("_x")) {
+      return value;
+    }
+    StringBuilder buf = new StringBuilder();
+    Matcher m = UTF_PATTERN.matcher(value);
+    int idx = 0;
+    while(m.find()) {
+      buf.append(value, idx, m.start());
+      buf.append((char) Integer.parseInt(m.group(1), 16));
+      idx = m.end();
+    }
+    return idx == 0 ? value : buf.append(value, idx, value.length()).toString();
+  }
+
+  @Override
+  public int getUniqueCount() {
+    checkLoaded(Integer.MAX_VALUE);
+    return list.size();
+  }
+
   @Override
   public void close() throws IOException {
     super.close();
-    list.close();
+    closed = true;
+    try {
+      if(loader != null) {
+        loader.join();
+      }
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      list.close();
+    }
   }
 }
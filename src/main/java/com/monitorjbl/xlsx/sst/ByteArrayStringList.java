@@ -0,0 +1,119 @@
+package com.monitorjbl.xlsx.sst;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * In-memory list of strings, packed as UTF-8 into large byte arrays rather than
+ * held as individual objects. Each entry costs its encoded length, a 1-5 byte
+ * length prefix and about 4 bytes of index, and is decoded again every time it's
+ * read unless a decoded cache is configured.
+ * <p>
+ * Entries are appended to 1MB pages and never span two of them. An entry too large
+ * for a page gets one to itself.
+ * <p>
+ * One thread can add entries while others read the ones already added. Entries are
+ * published by the {@link PointerIndex}, and a grown page table is only published once
+ * it's been copied.
+ */
+public class ByteArrayStringList implements AppendableStringList {
+  private static final int PAGE_BITS = 20;
+  private static final int PAGE_SIZE = 1 << PAGE_BITS;
+  private static final long PAGE_MASK = PAGE_SIZE - 1;
+
+  private final PointerIndex pointers = new PointerIndex();
+  private final SegmentedLruCache cache;
+
+  private volatile byte[][] pages = new byte[16][];
+  private int pageCount;
+  private int pageOffset;
+
+  /**
+   * @param cacheSizeBytes size of the cache of decoded strings, or 0 to decode on every read
+   */
+  public ByteArrayStringList(int cacheSizeBytes) {
+    this.cache = cacheSizeBytes > 0 ? new SegmentedLruCache(cacheSizeBytes) : null;
+  }
+
+  @Override
+  public void add(String str) {
+    byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+    int needed = LengthPrefix.size(bytes.length) + bytes.length;
+    byte[] page = pageCount == 0 ? null : pages[pageCount - 1];
+    if(page == null || pageOffset + needed > page.length) {
+      page = newPage(Math.max(PAGE_SIZE, needed));
+    }
+
+    int start = pageOffset;
+    int offset = LengthPrefix.write(page, start, bytes.length);
+    System.arraycopy(bytes, 0, page, offset, bytes.length);
+    pageOffset = offset + bytes.length;
+    //only once the entry is written, so that readers never see part of it
+    pointers.add(((long) (pageCount - 1) << PAGE_BITS) + start);
+  }
+
+  @Override
+  public String getAt(int index) {
+    if(cache != null) {
+      String cached = cache.getIfPresent(index);
+      if(cached != null) {
+        return cached;
+      }
+    }
+
+    long pointer = pointers.get(index);
+    byte[] page = pages[(int) (pointer >>> PAGE_BITS)];
+    int offset = (int) (pointer & PAGE_MASK);
+    int length = LengthPrefix.read(page, offset);
+
+    String value = new String(page, offset + LengthPrefix.size(length), length, StandardCharsets.UTF_8);
+    if(cache != null) {
+      cache.store(index, value);
+    }
+    return value;
+  }
+
+  @Override
+  public int size() {
+    return pointers.size();
+  }
+
+  @Override
+  public long getCacheHitCount() {
+    return cache == null ? 0 : cache.getHitCount();
+  }
+
+  @Override
+  public long getCacheMissCount() {
+    return cache == null ? 0 : cache.getMissCount();
+  }
+
+  /**
+   * @return bytes allocated for string data, including unused space at the end of pages
+   */
+  long getAllocatedBytes() {
+    long allocated = 0;
+    for(int i = 0; i < pageCount; i++) {
+      allocated += pages[i].length;
+    }
+    return allocated;
+  }
+
+  @Override
+  public void close() {
+    pages = new byte[0][];
+    pageCount = 0;
+  }
+
+  private byte[] newPage(int size) {
+    byte[][] table = pages;
+    if(pageCount == table.length) {
+      table = Arrays.copyOf(table, table.length * 2);
+      pages = table;
+    }
+    byte[] page = new byte[size];
+    table[pageCount++] = page;
+    pageOffset = 0;
+    return page;
+  }
+}
@@ -0,0 +1,276 @@
+package com.monitorjbl.xlsx.sst;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * File-backed list of strings, like {@link FileBackedList}, that compresses the
+ * file. Entries are packed into blocks of about 64KB, each deflated on its own
+ * once it's full so that any one of them can be read back without the others.
+ * <p>
+ * File block format:
+ * <ul>
+ * <li>4 bytes: length of the block once inflated</li>
+ * <li>the deflated block, made up of entries that are each a 1-5 byte length
+ * followed by that many bytes of UTF-8</li>
+ * </ul>
+ * <p>
+ * Where each block starts in the file is kept in a {@link PointerIndex}, as is
+ * the block and offset of each entry. Inflated blocks are kept in a cache of up
+ * to {@code cacheSizeBytes}, but always at least the last one read, evicting
+ * the least recently used first, so reading strings that are near each other
+ * only inflates their block once.
+ */
+public class CompressedFileBackedList implements AppendableStringList {
+  private static final int BLOCK_SIZE = 64 * 1024;
+  private static final int OFFSET_BITS = 20;
+  private static final long OFFSET_MASK = (1 << OFFSET_BITS) - 1;
+
+  private final PointerIndex pointers = new PointerIndex();
+  private final PointerIndex blocks = new PointerIndex();
+  private final RandomAccessFile raf;
+  private final FileChannel channel;
+  private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+  private final BlockCache cache;
+  private final LongAdder blockReads = new LongAdder();
+
+  private byte[] block = new byte[BLOCK_SIZE];
+  private int blockLength;
+  private byte[] compressed = new byte[BLOCK_SIZE];
+  private volatile long filesize;
+
+  public CompressedFileBackedList(File file, int cacheSizeBytes) throws IOException {
+    this.raf = new RandomAccessFile(file, "rw");
+    this.channel = raf.getChannel();
+    this.raf.setLength(0);
+    this.cache = new BlockCache(cacheSizeBytes);
+  }
+
+  @Override
+  public void add(String str) {
+    byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+    int needed = LengthPrefix.size(bytes.length) + bytes.length;
+    synchronized (this) {
+      if(blockLength >= BLOCK_SIZE) {
+        try {
+          writeBlock();
+        } catch(IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      if(blockLength + needed > block.length) {
+        //an entry larger than a block makes the block as large as it needs to be
+        block = Arrays.copyOf(block, blockLength + needed);
+      }
+
+      int start = blockLength;
+      blockLength = LengthPrefix.write(block, blockLength, bytes.length);
+      System.arraycopy(bytes, 0, block, blockLength, bytes.length);
+      blockLength += bytes.length;
+      //only once the entry is written, so that readers never see part of it
+      pointers.add(((long) blocks.size() << OFFSET_BITS) + start);
+    }
+  }
+
+  @Override
+  public String getAt(int index) {
+    //the index can be read while entries are being added, and the block an entry is
+    //in is looked up under the lock
+    long pointer = pointers.get(index);
+    int blockIndex = (int) (pointer >>> OFFSET_BITS);
+    int offset = (int) (pointer & OFFSET_MASK);
+
+    byte[] data = cache.get(blockIndex);
+    if(data == null) {
+      long start;
+      long end;
+      synchronized (this) {
+        if(blockIndex == blocks.size()) {
+          //still being filled
+          return decode(block, offset);
+        }
+        start = blocks.get(blockIndex);
+        end = blockIndex + 1 < blocks.size() ? blocks.get(blockIndex + 1) : filesize;
+      }
+      blockReads.increment();
+      try {
+        data = readBlock(blockIndex, start, end);
+      } catch(IOException | DataFormatException e) {
+        throw new RuntimeException("Unable to read shared strings block " + blockIndex, e);
+      }
+      cache.put(blockIndex, data);
+    }
+    return decode(data, offset);
+  }
+
+  @Override
+  public int size() {
+    return pointers.size();
+  }
+
+  /**
+   * @return number of reads whose block was already inflated
+   */
+  @Override
+  public long getCacheHitCount() {
+    return cache.getHitCount();
+  }
+
+  /**
+   * @return number of reads whose block had to be found elsewhere
+   */
+  @Override
+  public long getCacheMissCount() {
+    return cache.getMissCount();
+  }
+
+  /**
+   * @return number of blocks read back from the file
+   */
+  @Override
+  public long getDiskReadCount() {
+    return blockReads.sum();
+  }
+
+  /**
+   * @return bytes written to the file so far
+   */
+  public long getFileSize() {
+    return filesize;
+  }
+
+  @Override
+  public void close() {
+    deflater.end();
+    try {
+      raf.close();
+    } catch(IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static String decode(byte[] data, int offset) {
+    int length = LengthPrefix.read(data, offset);
+    return new String(data, offset + LengthPrefix.size(length), length, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Deflates the block being filled and appends it to the file. Must hold the lock.
+   */
+  private void writeBlock() throws IOException {
+    deflater.reset();
+    deflater.setInput(block, 0, blockLength);
+    deflater.finish();
+    int compressedLength = 4;
+    ByteBuffer.wrap(compressed).putInt(0, blockLength);
+    while(!deflater.finished()) {
+      if(compressedLength == compressed.length) {
+        compressed = Arrays.copyOf(compressed, compressed.length * 2);
+      }
+      compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+    }
+
+    long position = filesize;
+    ByteBuffer buffer = ByteBuffer.wrap(compressed, 0, compressedLength);
+    while(buffer.hasRemaining()) {
+      channel.write(buffer, position + buffer.position());
+    }
+    filesize = position + compressedLength;
+    blocks.add(position);
+
+    if(block.length > BLOCK_SIZE) {
+      block = new byte[BLOCK_SIZE];
+    }
+    blockLength = 0;
+  }
+
+  private byte[] readBlock(int blockIndex, long start, long end) throws IOException, DataFormatException {
+    ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+    while(buffer.hasRemaining()) {
+      if(channel.read(buffer, start + buffer.position()) < 0) {
+        throw new EOFException("Unexpected end of file at " + (start + buffer.position()));
+      }
+    }
+
+    byte[] data = new byte[buffer.getInt(0)];
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(buffer.array(), 4, buffer.capacity() - 4);
+      int inflated = 0;
+      while(inflated < data.length) {
+        int n = inflater.inflate(data, inflated, data.length - inflated);
+        if(n == 0 && (inflater.finished() || inflater.needsInput())) {
+          throw new EOFException("Truncated shared strings block " + blockIndex);
+        }
+        inflated += n;
+      }
+    } finally {
+      inflater.end();
+    }
+    return data;
+  }
+
+  /**
+   * Least recently used inflated blocks, up to a total size, and never fewer than one.
+   */
+  private static class BlockCache {
+    private final long capacity;
+    private final Map<Integer, byte[]> blocks = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+    private long hits;
+    private long misses;
+
+    BlockCache(long capacity) {
+      this.capacity = capacity;
+    }
+
+    synchronized byte[] get(int blockIndex) {
+      byte[] data = blocks.get(blockIndex);
+      if(data == null) {
+        misses++;
+      } else {
+        hits++;
+      }
+      return data;
+    }
+
+    synchronized long getHitCount() {
+      return hits;
+    }
+
+    synchronized long getMissCount() {
+      return misses;
+    }
+
+    /**
+     * Adds a block, evicting others until they fit. The block just added is always
+     * kept, even if it's larger than the capacity on its own, so that reading a run
+     * of strings from the same block only inflates it once however small the cache.
+     */
+    synchronized void put(int blockIndex, byte[] data) {
+      byte[] previous = blocks.put(blockIndex, data);
+      size += data.length - (previous == null ? 0 : previous.length);
+      Iterator<byte[]> it = blocks.values().iterator();
+      while(size > capacity && it.hasNext()) {
+        byte[] eldest = it.next();
+        if(eldest != data) {
+          size -= eldest.length;
+          it.remove();
+        }
+      }
+    }
+  }
+}
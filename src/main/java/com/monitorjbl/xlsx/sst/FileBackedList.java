@@ -1,21 +1,32 @@
 package com.monitorjbl.xlsx.sst;
 
+import com.monitorjbl.xlsx.impl.JfrEvents;
+import org.apache.poi.poifs.nio.CleanerUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * File-backed list-like class. Allows addition of arbitrary
  * numbers of array entries (serialized to JSON) in a binary
- * packed file. Reading of entries is done with an NIO
- * channel that seeks to the entry in the file.
+ * packed file. Entries are read out of memory-mapped segments
+ * of the file under a shared read lock, so any number of threads
+ * can read at once. Only {@link #close()} takes the write lock,
+ * so segments are never unmapped while a read is using them.
  * <p>
  * File entry format:
  * <ul>
@@ -23,26 +34,59 @@ import java.util.Map;
  * <li><i>length</i> bytes: JSON string containing the entry data</li>
  * </ul>
  * <p>
- * Pointers to the offset of each entry are kept in a {@code List<Long>}.
+ * Pointers to the offset of each entry are kept in a {@link PointerIndex},
+ * at about 4 bytes per entry.
  * The values loaded from the the file are cached up to a maximum of
- * {@code cacheSize}. Items are evicted from the cache with an LRU algorithm.
+ * {@code cacheSize}. Items are evicted from the cache with a segmented LRU
+ * algorithm, which keeps frequently read values over recently read ones.
+ * <p>
+ * Segments are mapped as they're needed, and overlap so that an entry that
+ * starts near the end of one still fits in it. Entries too long for that are
+ * read with positional reads on the channel instead.
+ * <p>
+ * New entries are collected in a write buffer and written out in large
+ * sequential writes. Reading an entry that's still in the buffer writes it
+ * out first.
  */
-public class FileBackedList implements AutoCloseable {
+public class FileBackedList implements AppendableStringList {
+  private static final Logger log = LoggerFactory.getLogger(FileBackedList.class);
 
-  private final List<Long> pointers = new ArrayList<>();
+  private static final int SEGMENT_BITS = 26;
+  private static final int SEGMENT_OVERLAP = 64 * 1024;
+  private static final int WRITE_BUFFER_SIZE = 256 * 1024;
+
+  private final PointerIndex pointers = new PointerIndex();
   private final RandomAccessFile raf;
   private final FileChannel channel;
-  private final LRUCache cache;
+  private final SegmentedLruCache cache;
+  private final int segmentBits;
+  private final long segmentSize;
+  private final int segmentOverlap;
+  private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+  private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+  private boolean closed;
 
-  private long filesize;
+  /**
+   * Bytes written to the file, not counting those still in the write buffer.
+   */
+  private volatile long filesize;
+  private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
 
   public FileBackedList(File file, final int cacheSizeBytes) throws IOException {
+    this(file, cacheSizeBytes, SEGMENT_BITS, SEGMENT_OVERLAP);
+  }
+
+  FileBackedList(File file, int cacheSizeBytes, int segmentBits, int segmentOverlap) throws IOException {
     this.raf = new RandomAccessFile(file, "rw");
     this.channel = raf.getChannel();
     this.filesize = raf.length();
-    this.cache = new LRUCache(cacheSizeBytes);
+    this.cache = new SegmentedLruCache(cacheSizeBytes);
+    this.segmentBits = segmentBits;
+    this.segmentSize = 1L << segmentBits;
+    this.segmentOverlap = segmentOverlap;
   }
 
+  @Override
   public void add(String str) {
     try {
         writeToFile(str);
@@ -51,60 +95,220 @@ public class FileBackedList implements AutoCloseable {
     }
   }
 
+  @Override
   public String getAt(int index) {
     String s = cache.getIfPresent(index);
     if (s != null)
       return s;
 
+    closeLock.readLock().lock();
     try {
-      String val = readFromFile(pointers.get(index));
+      if(closed) {
+        throw new ClosedChannelException();
+      }
+      long pointer = pointers.get(index);
+      if(pointer >= filesize) {
+        synchronized (channel) {
+          flush();
+        }
+      }
+      JfrEvents.Event event = JfrEvents.SHARED_STRING_DISK_READ.begin();
+      String val = readFromFile(pointer);
+      if(event != null) {
+        event.commit(val.length());
+      }
       cache.store(index, val);
       return val;
     } catch(IOException e) {
       throw new RuntimeException(e);
+    } finally {
+      closeLock.readLock().unlock();
     }
   }
 
+  @Override
+  public int size() {
+    return pointers.size();
+  }
+
+  /**
+   * @return number of reads answered by the cache
+   */
+  @Override
+  public long getCacheHitCount() {
+    return cache.getHitCount();
+  }
+
+  /**
+   * @return number of reads that had to go to the file
+   */
+  @Override
+  public long getCacheMissCount() {
+    return cache.getMissCount();
+  }
+
+  /**
+   * @return number of reads that had to go to the file
+   */
+  @Override
+  public long getDiskReadCount() {
+    return cache.getMissCount();
+  }
+
+  /**
+   * @return number of values evicted from the cache to make room for others
+   */
+  public long getCacheEvictionCount() {
+    return cache.getEvictionCount();
+  }
+
   private void writeToFile(String str) throws IOException {
+    byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
     synchronized (channel) {
-      ByteBuffer bytes = ByteBuffer.wrap(str.getBytes(StandardCharsets.UTF_8));
-      ByteBuffer length = ByteBuffer.allocate(4).putInt(bytes.array().length);
+      if(writeBuffer.remaining() < 4 + bytes.length) {
+        flush();
+      }
+      long pointer = filesize + writeBuffer.position();
+      if(writeBuffer.remaining() < 4 + bytes.length) {
+        //too large to buffer
+        ByteBuffer length = ByteBuffer.allocate(4).putInt(0, bytes.length);
+        write(length);
+        write(ByteBuffer.wrap(bytes));
+      } else {
+        writeBuffer.putInt(bytes.length);
+        writeBuffer.put(bytes);
+      }
+      //only once the entry is written, so that readers never see part of it
+      pointers.add(pointer);
+    }
+  }
 
-      channel.position(filesize);
-      pointers.add(channel.position());
-      length.flip();
-      channel.write(length);
-      channel.write(bytes);
+  /**
+   * Writes out the write buffer. Must hold the lock on {@code channel}.
+   */
+  private void flush() throws IOException {
+    writeBuffer.flip();
+    write(writeBuffer);
+    writeBuffer.clear();
+  }
 
-      filesize += 4 + bytes.array().length;
+  private void write(ByteBuffer buffer) throws IOException {
+    long position = filesize;
+    int length = buffer.remaining();
+    while(buffer.hasRemaining()) {
+      channel.write(buffer, position + length - buffer.remaining());
     }
+    filesize = position + length;
   }
 
   private String readFromFile(long pointer) throws IOException {
-    synchronized (channel) {
-      FileChannel fc = channel.position(pointer);
+    ByteBuffer segment = segment(pointer, 4);
+    if(segment == null) {
+      return readFromChannel(pointer);
+    }
+    int offset = (int) (pointer & (segmentSize - 1));
+    int length = segment.getInt(offset);
+    segment = segment(pointer, 4 + length);
+    if(segment == null) {
+      return readFromChannel(pointer);
+    }
 
-      //get length of entry
-      ByteBuffer buffer = ByteBuffer.wrap(new byte[4]);
-      fc.read(buffer);
-      buffer.flip();
-      int length = buffer.getInt();
+    byte[] bytes = new byte[length];
+    ByteBuffer view = segment.duplicate();
+    view.position(offset + 4);
+    view.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
 
-      //read entry
-      buffer = ByteBuffer.wrap(new byte[length]);
-      fc.read(buffer);
-      buffer.flip();
+  /**
+   * @return the mapped segment holding {@code length} bytes at {@code pointer}, or
+   * null if they don't fit in a single segment
+   */
+  private ByteBuffer segment(long pointer, int length) throws IOException {
+    int index = (int) (pointer >>> segmentBits);
+    long end = (pointer & (segmentSize - 1)) + length;
+    MappedByteBuffer[] mapped = segments;
+    if(index < mapped.length && mapped[index] != null && end <= mapped[index].limit()) {
+      return mapped[index];
+    }
+    if(end > segmentSize + segmentOverlap) {
+      return null;
+    }
+    return map(index, end);
+  }
 
-      return new String(buffer.array(), StandardCharsets.UTF_8);
+  /**
+   * Maps a segment, or maps it again if the file has grown since it was last mapped.
+   */
+  private synchronized ByteBuffer map(int index, long end) throws IOException {
+    MappedByteBuffer[] mapped = segments;
+    if(index < mapped.length && mapped[index] != null && end <= mapped[index].limit()) {
+      return mapped[index];
+    }
+
+    long start = (long) index << segmentBits;
+    long size = Math.min(filesize - start, segmentSize + segmentOverlap);
+    if(size < end) {
+      return null;
+    }
+    MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+    mapped = Arrays.copyOf(mapped, Math.max(mapped.length, index + 1));
+    mapped[index] = segment;
+    segments = mapped;
+    return segment;
+  }
+
+  private String readFromChannel(long pointer) throws IOException {
+    ByteBuffer length = ByteBuffer.allocate(4);
+    readFully(length, pointer);
+    ByteBuffer bytes = ByteBuffer.allocate(length.getInt(0));
+    readFully(bytes, pointer + 4);
+    return new String(bytes.array(), StandardCharsets.UTF_8);
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while(buffer.hasRemaining()) {
+      if(channel.read(buffer, position + buffer.position()) < 0) {
+        throw new EOFException("Unexpected end of file at " + (position + buffer.position()));
+      }
     }
   }
 
   @Override
   public void close() {
+    closeLock.writeLock().lock();
     try {
+      if(closed) {
+        return;
+      }
+      closed = true;
+      unmap();
       raf.close();
     } catch(IOException e) {
       throw new RuntimeException(e);
+    } finally {
+      closeLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Mapped segments would otherwise hold on to the file until they're garbage
+   * collected, which keeps it from being deleted on Windows.
+   */
+  private void unmap() {
+    MappedByteBuffer[] mapped = segments;
+    segments = new MappedByteBuffer[0];
+    if(!CleanerUtil.UNMAP_SUPPORTED) {
+      return;
+    }
+    for(MappedByteBuffer segment : mapped) {
+      if(segment != null) {
+        try {
+          CleanerUtil.getCleaner().freeBuffer(segment);
+        } catch(IOException e) {
+          log.debug("Unable to unmap sst cache segment", e);
+        }
+      }
     }
   }
 }
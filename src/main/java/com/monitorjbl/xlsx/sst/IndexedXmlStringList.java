@@ -0,0 +1,265 @@
+package com.monitorjbl.xlsx.sst;
+
+import com.monitorjbl.xlsx.exceptions.ParseException;
+import org.apache.poi.util.StaxHelper;
+
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.XMLEvent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * List of strings read straight out of a copy of {@code sharedStrings.xml}. Building
+ * it only copies the XML to a file and notes where each {@code <si>} element starts,
+ * without parsing any of them; an entry is parsed the first time it's read, and kept
+ * in a cache of decoded strings if one is configured.
+ * <p>
+ * The scan looks for {@code <si} at the byte level, so it relies on the part being
+ * UTF-8, as Excel writes it. Comments, CDATA sections and processing instructions
+ * are skipped over, so tags inside them aren't indexed. Each entry is parsed
+ * inside a copy of the root element's start tag so that any namespace prefixes
+ * still resolve.
+ */
+public class IndexedXmlStringList implements StringList {
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final String COMMENT = "!--";
+  private static final String CDATA = "![CDATA[";
+
+  private final PointerIndex pointers = new PointerIndex();
+  private final RandomAccessFile raf;
+  private final FileChannel channel;
+  private final SegmentedLruCache cache;
+  private final XMLInputFactory xmlInputFactory = StaxHelper.newXMLInputFactory();
+  private final LongAdder diskReads = new LongAdder();
+
+  private byte[] rootTag;
+  private long length;
+
+  private IndexedXmlStringList(File file, int cacheSizeBytes) throws IOException {
+    this.raf = new RandomAccessFile(file, "rw");
+    this.channel = raf.getChannel();
+    this.cache = cacheSizeBytes > 0 ? new SegmentedLruCache(cacheSizeBytes) : null;
+  }
+
+  /**
+   * Copies the XML to {@code file} and indexes its entries. The stream is left open.
+   *
+   * @param is             {@code sharedStrings.xml}
+   * @param file           file to copy the XML to
+   * @param cacheSizeBytes size of the cache of decoded strings, or 0 to parse on every read
+   * @return the indexed list
+   * @throws IOException if the stream can't be read or the file written
+   */
+  public static IndexedXmlStringList index(InputStream is, File file, int cacheSizeBytes) throws IOException {
+    IndexedXmlStringList list = new IndexedXmlStringList(file, cacheSizeBytes);
+    try {
+      list.scan(is);
+      return list;
+    } catch(IOException | RuntimeException e) {
+      list.close();
+      throw e;
+    }
+  }
+
+  private void scan(InputStream is) throws IOException {
+    byte[] buffer = new byte[BUFFER_SIZE];
+    ByteArrayOutputStream root = null;
+    StringBuilder name = new StringBuilder();
+    boolean inName = false;
+    long tagStart = 0;
+    long position = 0;
+    //inside a comment, CDATA section or processing instruction, which ends at a '>'
+    //that follows at least skipRun of skipChar
+    byte skipChar = 0;
+    int skipRun = 0;
+    int run = 0;
+
+    int read;
+    while((read = is.read(buffer)) != -1) {
+      for(int i = 0; i < read; i++) {
+        byte b = buffer[i];
+        if(root != null) {
+          root.write(b);
+          if(b == '>') {
+            rootTag = root.toByteArray();
+            root = null;
+          }
+        }
+
+        if(skipChar != 0) {
+          if(b == '>' && run >= skipRun) {
+            skipChar = 0;
+          } else {
+            run = b == skipChar ? run + 1 : 0;
+          }
+          continue;
+        }
+
+        if(b == '<') {
+          inName = true;
+          name.setLength(0);
+          tagStart = position + i;
+        } else if(!inName) {
+          continue;
+        } else if(name.length() == 0 && b == '/') {
+          //end tag
+          inName = false;
+        } else if(name.length() == 0 && b == '?') {
+          //processing instruction, up to ?>
+          inName = false;
+          skipChar = '?';
+          skipRun = 1;
+          run = 0;
+        } else if(b == '!' && name.length() == 0 || name.length() > 0 && name.charAt(0) == '!') {
+          name.append((char) b);
+          if(name.length() == COMMENT.length() && COMMENT.contentEquals(name)) {
+            inName = false;
+            skipChar = '-';
+            skipRun = 2;
+            run = 0;
+          } else if(name.length() == CDATA.length() && CDATA.contentEquals(name)) {
+            inName = false;
+            skipChar = ']';
+            skipRun = 2;
+            run = 0;
+          } else if(!COMMENT.startsWith(name.toString()) && !CDATA.startsWith(name.toString())) {
+            //some other declaration, like a DOCTYPE
+            inName = false;
+          }
+        } else if(b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '>' || b == '/') {
+          inName = false;
+          if(rootTag == null && root == null) {
+            root = new ByteArrayOutputStream();
+            root.write('<');
+            root.write(name.toString().getBytes(StandardCharsets.ISO_8859_1));
+            root.write(b);
+            if(b == '>') {
+              rootTag = root.toByteArray();
+              root = null;
+            }
+          } else if(isStringItem(name)) {
+            pointers.add(tagStart);
+          }
+        } else {
+          name.append((char) (b & 0xFF));
+        }
+      }
+
+      ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+      while(bytes.hasRemaining()) {
+        channel.write(bytes);
+      }
+      position += read;
+    }
+
+    if(rootTag == null) {
+      throw new ParseException("Shared strings part has no root element");
+    }
+    length = position;
+  }
+
+  private static boolean isStringItem(CharSequence name) {
+    int length = name.length();
+    return length >= 2 && name.charAt(length - 2) == 's' && name.charAt(length - 1) == 'i'
+        && (length == 2 || name.charAt(length - 3) == ':');
+  }
+
+  @Override
+  public String getAt(int index) {
+    if(cache != null) {
+      String cached = cache.getIfPresent(index);
+      if(cached != null) {
+        return cached;
+      }
+    }
+
+    long start = pointers.get(index);
+    long end = index + 1 < pointers.size() ? pointers.get(index + 1) : length;
+    if(end - start > Integer.MAX_VALUE - rootTag.length) {
+      throw new ParseException("Shared string " + index + " is too large to read");
+    }
+
+    diskReads.increment();
+    byte[] bytes = new byte[rootTag.length + (int) (end - start)];
+    System.arraycopy(rootTag, 0, bytes, 0, rootTag.length);
+    String value;
+    try {
+      ByteBuffer entry = ByteBuffer.wrap(bytes, rootTag.length, bytes.length - rootTag.length);
+      while(entry.hasRemaining()) {
+        if(channel.read(entry, start + entry.position() - rootTag.length) < 0) {
+          throw new EOFException();
+        }
+      }
+      value = parse(bytes);
+    } catch(IOException | XMLStreamException e) {
+      throw new ParseException("Unable to read shared string " + index, e);
+    }
+
+    if(cache != null) {
+      cache.store(index, value);
+    }
+    return value;
+  }
+
+  private String parse(byte[] bytes) throws XMLStreamException {
+    XMLEventReader xmlEventReader = xmlInputFactory.createXMLEventReader(new ByteArrayInputStream(bytes));
+    try {
+      boolean inRoot = false;
+      while(xmlEventReader.hasNext()) {
+        XMLEvent xmlEvent = xmlEventReader.nextEvent();
+        if(!xmlEvent.isStartElement()) {
+          continue;
+        } else if(!inRoot) {
+          inRoot = true;
+        } else if(xmlEvent.asStartElement().getName().getLocalPart().equals("si")) {
+          return BufferedStringsTable.parseCT_Rst(xmlEventReader);
+        } else {
+          break;
+        }
+      }
+      throw new XMLStreamException("Expected a <si> element");
+    } finally {
+      xmlEventReader.close();
+    }
+  }
+
+  @Override
+  public int size() {
+    return pointers.size();
+  }
+
+  @Override
+  public long getCacheHitCount() {
+    return cache == null ? 0 : cache.getHitCount();
+  }
+
+  @Override
+  public long getCacheMissCount() {
+    return cache == null ? 0 : cache.getMissCount();
+  }
+
+  @Override
+  public long getDiskReadCount() {
+    return diskReads.sum();
+  }
+
+  @Override
+  public void close() {
+    try {
+      raf.close();
+    } catch(IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package com.monitorjbl.xlsx.sst;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The varint length written before each entry by the lists that pack strings into
+ * pages or blocks: 7 bits per byte, least significant first, with the high bit set
+ * on every byte but the last. Lengths under 128 take a single byte.
+ */
+final class LengthPrefix {
+
+  private LengthPrefix() {
+  }
+
+  /**
+   * @return number of bytes the prefix for {@code length} takes
+   */
+  static int size(int length) {
+    int size = 1;
+    while(length > 0x7F) {
+      length >>>= 7;
+      size++;
+    }
+    return size;
+  }
+
+  /**
+   * @return the offset just after the prefix
+   */
+  static int write(byte[] data, int offset, int length) {
+    while(length > 0x7F) {
+      data[offset++] = (byte) (length | 0x80);
+      length >>>= 7;
+    }
+    data[offset++] = (byte) length;
+    return offset;
+  }
+
+  static void write(ByteBuffer data, int length) {
+    while(length > 0x7F) {
+      data.put((byte) (length | 0x80));
+      length >>>= 7;
+    }
+    data.put((byte) length);
+  }
+
+  /**
+   * @return the length whose prefix starts at {@code offset}. The entry starts
+   * {@link #size(int)} bytes later.
+   */
+  static int read(byte[] data, int offset) {
+    int length = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = data[offset++];
+      length |= (b & 0x7F) << shift;
+      shift += 7;
+    } while(b < 0);
+    return length;
+  }
+
+  static int read(ByteBuffer data, int offset) {
+    int length = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = data.get(offset++);
+      length |= (b & 0x7F) << shift;
+      shift += 7;
+    } while(b < 0);
+    return length;
+  }
+}
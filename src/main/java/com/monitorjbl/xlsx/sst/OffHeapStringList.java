@@ -0,0 +1,208 @@
+package com.monitorjbl.xlsx.sst;
+
+import org.apache.poi.poifs.nio.CleanerUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * List of strings kept as UTF-8 in direct memory, outside of the Java heap, up to a
+ * fixed budget. Once the budget is used up, any further strings are written to a
+ * {@link FileBackedList} instead.
+ * <p>
+ * Entries are laid out the same way as in {@link ByteArrayStringList}: a varint
+ * length followed by the encoded string, in 1MB pages. The memory is released as
+ * soon as the list is closed rather than whenever the buffers are collected, once
+ * any reads still using them have finished.
+ * <p>
+ * One thread can add entries while others read the ones already added, the same way
+ * as with {@link ByteArrayStringList}.
+ */
+public class OffHeapStringList implements AppendableStringList {
+  private static final Logger log = LoggerFactory.getLogger(OffHeapStringList.class);
+
+  private static final int PAGE_BITS = 20;
+  private static final int PAGE_SIZE = 1 << PAGE_BITS;
+  private static final long PAGE_MASK = PAGE_SIZE - 1;
+
+  private final PointerIndex pointers = new PointerIndex();
+  private final long budgetBytes;
+  private final File overflowFile;
+  private final int overflowCacheSizeBytes;
+  private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+  private volatile ByteBuffer[] pages = new ByteBuffer[16];
+  private int pageCount;
+  private boolean closed;
+  private long allocatedBytes;
+  private ByteBuffer page;
+  private volatile FileBackedList overflow;
+
+  /**
+   * @param budgetBytes            most direct memory to use for string data
+   * @param overflowFile           file to write strings to once the budget is used up
+   * @param overflowCacheSizeBytes size of the cache of strings read back from the file
+   */
+  public OffHeapStringList(long budgetBytes, File overflowFile, int overflowCacheSizeBytes) {
+    this.budgetBytes = budgetBytes;
+    this.overflowFile = overflowFile;
+    this.overflowCacheSizeBytes = overflowCacheSizeBytes;
+  }
+
+  @Override
+  public void add(String str) {
+    if(overflow != null) {
+      overflow.add(str);
+      return;
+    }
+
+    byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+    int needed = LengthPrefix.size(bytes.length) + bytes.length;
+    if((page == null || page.remaining() < needed) && !newPage(needed)) {
+      log.debug("Off-heap shared strings budget of " + budgetBytes + " bytes used up after " + pointers.size()
+          + " strings, writing the rest to [" + overflowFile.getAbsolutePath() + "]");
+      try {
+        overflow = new FileBackedList(overflowFile, overflowCacheSizeBytes);
+      } catch(IOException e) {
+        throw new RuntimeException(e);
+      }
+      overflow.add(str);
+      return;
+    }
+
+    int start = page.position();
+    LengthPrefix.write(page, bytes.length);
+    page.put(bytes);
+    //only once the entry is written, so that readers never see part of it
+    pointers.add(((long) (pageCount - 1) << PAGE_BITS) + start);
+  }
+
+  @Override
+  public String getAt(int index) {
+    if(index >= pointers.size()) {
+      FileBackedList overflow = this.overflow;
+      if(overflow == null) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+      }
+      return overflow.getAt(index - pointers.size());
+    }
+
+    long pointer = pointers.get(index);
+    byte[] bytes;
+    closeLock.readLock().lock();
+    try {
+      if(closed) {
+        throw new IllegalStateException("The list has been closed");
+      }
+      ByteBuffer data = pages[(int) (pointer >>> PAGE_BITS)];
+      int offset = (int) (pointer & PAGE_MASK);
+      int length = LengthPrefix.read(data, offset);
+
+      bytes = new byte[length];
+      ByteBuffer view = data.duplicate();
+      view.position(offset + LengthPrefix.size(length));
+      view.get(bytes);
+    } finally {
+      closeLock.readLock().unlock();
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public int size() {
+    FileBackedList overflow = this.overflow;
+    return pointers.size() + (overflow == null ? 0 : overflow.size());
+  }
+
+  @Override
+  public long getCacheHitCount() {
+    FileBackedList overflow = this.overflow;
+    return overflow == null ? 0 : overflow.getCacheHitCount();
+  }
+
+  @Override
+  public long getCacheMissCount() {
+    FileBackedList overflow = this.overflow;
+    return overflow == null ? 0 : overflow.getCacheMissCount();
+  }
+
+  @Override
+  public long getDiskReadCount() {
+    FileBackedList overflow = this.overflow;
+    return overflow == null ? 0 : overflow.getDiskReadCount();
+  }
+
+  /**
+   * @return direct memory allocated for string data
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * @return whether the budget was used up and strings had to be written to disk
+   */
+  public boolean isOverflowing() {
+    return overflow != null;
+  }
+
+  @Override
+  public void close() {
+    closeLock.writeLock().lock();
+    try {
+      if(!closed) {
+        closed = true;
+        for(int i = 0; i < pageCount; i++) {
+          free(pages[i]);
+        }
+        pages = new ByteBuffer[0];
+        pageCount = 0;
+        page = null;
+      }
+    } finally {
+      closeLock.writeLock().unlock();
+      if(overflow != null) {
+        overflow.close();
+      }
+    }
+  }
+
+  private boolean newPage(int needed) {
+    int size = (int) Math.min(Math.max(PAGE_SIZE, needed), budgetBytes - allocatedBytes);
+    if(size < needed) {
+      return false;
+    }
+    try {
+      page = ByteBuffer.allocateDirect(size);
+    } catch(OutOfMemoryError e) {
+      //Only direct memory ran out (-XX:MaxDirectMemorySize), the heap is fine
+      log.debug("Unable to allocate direct memory for shared strings", e);
+      return false;
+    }
+    ByteBuffer[] table = pages;
+    if(pageCount == table.length) {
+      table = Arrays.copyOf(table, table.length * 2);
+      pages = table;
+    }
+    table[pageCount++] = page;
+    allocatedBytes += size;
+    return true;
+  }
+
+  private static void free(ByteBuffer buffer) {
+    if(CleanerUtil.UNMAP_SUPPORTED) {
+      try {
+        CleanerUtil.getCleaner().freeBuffer(buffer);
+      } catch(IOException e) {
+        log.debug("Unable to release off-heap shared strings", e);
+      }
+    }
+  }
+}
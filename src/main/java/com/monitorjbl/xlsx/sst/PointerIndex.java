@@ -0,0 +1,97 @@
+package com.monitorjbl.xlsx.sst;
+
+/**
+ * Append-only list of file offsets, stored without boxing.
+ * <p>
+ * Offsets are kept in fixed size chunks, each holding the first offset in the
+ * chunk and the rest as unsigned {@code int} deltas from it, so an entry costs
+ * 4 bytes. A chunk whose entries span more than 4GB of the file is widened to
+ * absolute {@code long} offsets.
+ * <p>
+ * One thread can add offsets while any number of others read the ones already
+ * added. {@link #size()} is written last, so an offset is visible along with it,
+ * and the chunk tables are only replaced by fully copied ones. A chunk's deltas
+ * are kept once it's widened, so a reader that hasn't seen it widened yet still
+ * finds the earlier offsets there.
+ */
+class PointerIndex {
+  private static final int CHUNK_BITS = 12;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  private static final long MAX_DELTA = 0xFFFFFFFFL;
+
+  private volatile long[] bases = new long[16];
+  private volatile int[][] deltas = new int[16][];
+  private volatile Widened[] widened = new Widened[16];
+  private volatile int size;
+
+  void add(long pointer) {
+    int size = this.size;
+    int chunk = size >>> CHUNK_BITS;
+    int slot = size & CHUNK_MASK;
+    if(slot == 0) {
+      if(chunk == bases.length) {
+        grow();
+      }
+      bases[chunk] = pointer;
+      deltas[chunk] = new int[CHUNK_SIZE];
+    }
+
+    long delta = pointer - bases[chunk];
+    Widened wide = widened[chunk];
+    if(wide == null && (delta < 0 || delta > MAX_DELTA)) {
+      wide = new Widened(bases[chunk], deltas[chunk], slot);
+      widened[chunk] = wide;
+    }
+    if(wide != null) {
+      wide.offsets[slot] = pointer;
+    } else {
+      deltas[chunk][slot] = (int) delta;
+    }
+    this.size = size + 1;
+  }
+
+  long get(int index) {
+    int size = this.size;
+    if(index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    int chunk = index >>> CHUNK_BITS;
+    Widened wide = widened[chunk];
+    if(wide != null) {
+      return wide.offsets[index & CHUNK_MASK];
+    }
+    return bases[chunk] + (deltas[chunk][index & CHUNK_MASK] & MAX_DELTA);
+  }
+
+  int size() {
+    return size;
+  }
+
+  private void grow() {
+    int capacity = bases.length * 2;
+    long[] newBases = new long[capacity];
+    int[][] newDeltas = new int[capacity][];
+    Widened[] newWidened = new Widened[capacity];
+    System.arraycopy(bases, 0, newBases, 0, bases.length);
+    System.arraycopy(deltas, 0, newDeltas, 0, deltas.length);
+    System.arraycopy(widened, 0, newWidened, 0, widened.length);
+    bases = newBases;
+    deltas = newDeltas;
+    widened = newWidened;
+  }
+
+  /**
+   * Absolute offsets of a chunk. The ones copied over when it's widened are filled in
+   * by the constructor, so a reader that sees the chunk widened also sees them.
+   */
+  private static final class Widened {
+    private final long[] offsets = new long[CHUNK_SIZE];
+
+    Widened(long base, int[] narrow, int count) {
+      for(int i = 0; i < count; i++) {
+        offsets[i] = base + (narrow[i] & MAX_DELTA);
+      }
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package com.monitorjbl.xlsx.sst;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe, size-bounded cache of shared strings.
+ * <p>
+ * Each stripe of the cache is a segmented LRU: new entries go into a probationary
+ * segment, and are promoted to a protected segment the second time they're read.
+ * Strings that are only ever read once (a scan through unique values) therefore only
+ * displace other probationary entries, while the handful of values most sheets repeat
+ * over and over stay cached. Keys are spread over independently locked stripes so
+ * concurrent readers rarely contend.
+ * <p>
+ * Sizes are tracked in bytes of heap used, including the map entry, key and
+ * {@code String} overhead. A string too large to ever fit is simply not cached.
+ */
+class SegmentedLruCache {
+  //Map node, boxed key, String object and array header
+  private static final int ENTRY_OVERHEAD = 96;
+  //Share of each stripe reserved for entries that have been read more than once
+  private static final double PROTECTED_RATIO = 0.8;
+  private static final int MAX_STRIPES = 16;
+  private static final long MIN_STRIPE_SIZE = 16 * 1024;
+  private static final boolean COMPACT_STRINGS = !System.getProperty("java.specification.version").startsWith("1.");
+
+  private final Stripe[] stripes;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  SegmentedLruCache(long capacityBytes) {
+    int count = 1;
+    while(count < MAX_STRIPES && capacityBytes / (count * 2) >= MIN_STRIPE_SIZE) {
+      count *= 2;
+    }
+    this.stripes = new Stripe[count];
+    for(int i = 0; i < count; i++) {
+      stripes[i] = new Stripe(capacityBytes / count);
+    }
+  }
+
+  String getIfPresent(int key) {
+    String value = stripe(key).get(key);
+    if(value == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return value;
+  }
+
+  void store(int key, String value) {
+    stripe(key).put(key, value, sizeOf(value));
+  }
+
+  long getHitCount() {
+    return hits.sum();
+  }
+
+  long getMissCount() {
+    return misses.sum();
+  }
+
+  long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  long getSizeBytes() {
+    long size = 0;
+    for(Stripe stripe : stripes) {
+      size += stripe.size();
+    }
+    return size;
+  }
+
+  private Stripe stripe(int key) {
+    //spread consecutive indexes, which tend to be read together, over different stripes
+    int hash = key * 0x9E3779B9;
+    return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+  }
+
+  static long sizeOf(String value) {
+    boolean latin1 = COMPACT_STRINGS;
+    for(int i = 0; latin1 && i < value.length(); i++) {
+      latin1 = value.charAt(i) <= 0xFF;
+    }
+    return ENTRY_OVERHEAD + (latin1 ? value.length() : 2L * value.length());
+  }
+
+  private class Stripe {
+    private final long capacity;
+    private final long protectedCapacity;
+    private final LinkedHashMap<Integer, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Integer, Entry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private long probationSize;
+    private long protectedSize;
+
+    Stripe(long capacity) {
+      this.capacity = capacity;
+      this.protectedCapacity = (long) (capacity * PROTECTED_RATIO);
+    }
+
+    synchronized String get(int key) {
+      Entry entry = protectedSegment.get(key);
+      if(entry != null) {
+        return entry.value;
+      }
+
+      entry = probation.remove(key);
+      if(entry == null) {
+        return null;
+      }
+      probationSize -= entry.size;
+      protectedSegment.put(key, entry);
+      protectedSize += entry.size;
+
+      //demote the least recently used protected entries to make room
+      Iterator<Map.Entry<Integer, Entry>> it = protectedSegment.entrySet().iterator();
+      while(protectedSize > protectedCapacity && it.hasNext()) {
+        Map.Entry<Integer, Entry> demoted = it.next();
+        if(demoted.getValue() == entry) {
+          break;
+        }
+        it.remove();
+        protectedSize -= demoted.getValue().size;
+        probation.put(demoted.getKey(), demoted.getValue());
+        probationSize += demoted.getValue().size;
+      }
+      return entry.value;
+    }
+
+    synchronized void put(int key, String value, long size) {
+      if(size > capacity || protectedSegment.containsKey(key) || probation.containsKey(key)) {
+        return;
+      }
+      Entry entry = new Entry(value, size);
+      probation.put(key, entry);
+      probationSize += size;
+
+      evict(probation, true, entry);
+      evict(protectedSegment, false, entry);
+    }
+
+    private void evict(LinkedHashMap<Integer, Entry> segment, boolean isProbation, Entry added) {
+      Iterator<Entry> it = segment.values().iterator();
+      while(probationSize + protectedSize > capacity && it.hasNext()) {
+        Entry evicted = it.next();
+        if(evicted == added) {
+          break;
+        }
+        it.remove();
+        if(isProbation) {
+          probationSize -= evicted.size;
+        } else {
+          protectedSize -= evicted.size;
+        }
+        evictions.increment();
+      }
+    }
+
+    synchronized long size() {
+      return probationSize + protectedSize;
+    }
+  }
+
+  private static class Entry {
+    private final String value;
+    private final long size;
+
+    Entry(String value, long size) {
+      this.value = value;
+      this.size = size;
+    }
+  }
+}
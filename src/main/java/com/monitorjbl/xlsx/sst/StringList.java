@@ -0,0 +1,37 @@
+package com.monitorjbl.xlsx.sst;
+
+/**
+ * Storage for the text of a shared strings table, in the order the strings
+ * are declared. Lists that are filled in as the table is parsed are
+ * {@link AppendableStringList}s.
+ */
+public interface StringList extends AutoCloseable {
+
+  String getAt(int index);
+
+  int size();
+
+  /**
+   * @return number of reads answered by a cache of decoded strings, if the list has one
+   */
+  default long getCacheHitCount() {
+    return 0;
+  }
+
+  /**
+   * @return number of reads the cache, if the list has one, couldn't answer
+   */
+  default long getCacheMissCount() {
+    return 0;
+  }
+
+  /**
+   * @return number of reads that had to go to a file
+   */
+  default long getDiskReadCount() {
+    return 0;
+  }
+
+  @Override
+  void close();
+}
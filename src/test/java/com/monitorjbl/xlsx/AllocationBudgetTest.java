@@ -0,0 +1,143 @@
+package com.monitorjbl.xlsx;
+
+import com.monitorjbl.xlsx.WorkbookGenerator.CellKind;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Fails when iterating a sheet allocates more per cell than it used to, so that changes
+ * to the row and cell parsing that add garbage get noticed before a release.
+ * <p>
+ * Only the iteration is measured, not opening the workbook, and the reading thread's
+ * allocations are counted with {@code com.sun.management.ThreadMXBean}. Each shape is
+ * read a few times first so the JIT has compiled the hot paths, since escape analysis
+ * removes a good part of the garbage once it has.
+ * </p>
+ * <p>
+ * Most of what's allocated today comes from the StAX event reader the sheet is parsed
+ * with. Budgets are about half again what was measured when they were set, which
+ * leaves room for differences between machines: if a change lowers allocations for
+ * good, lower the budget with it. Java 8, which the build runs on, has its own, and
+ * the later versions share the ones set on Java 17. Bytes per cell measured:
+ * </p>
+ * <table summary="Bytes allocated per cell">
+ * <tr><th>Java</th><th>numbers</th><th>shared strings</th><th>mixed</th><th>sparse</th></tr>
+ * <tr><td>8</td><td>2,530</td><td>2,330</td><td>2,770</td><td>2,490</td></tr>
+ * <tr><td>11</td><td>2,480</td><td>2,340</td><td>2,760</td><td>2,470</td></tr>
+ * <tr><td>17</td><td>2,630</td><td>2,550</td><td>3,000</td><td>2,710</td></tr>
+ * <tr><td>21</td><td>2,650</td><td>2,570</td><td>3,010</td><td>2,720</td></tr>
+ * </table>
+ */
+public class AllocationBudgetTest {
+  private static final int ROWS = 10_000;
+  private static final int COLUMNS = 10;
+  private static final int WARMUP = 3;
+  private static final boolean JAVA_8 = "1.8".equals(System.getProperty("java.specification.version"));
+
+  private static File numbers;
+  private static File strings;
+  private static File mixed;
+  private static File sparse;
+
+  @BeforeAll
+  public static void writeWorkbooks() throws IOException {
+    numbers = generator().cellKinds(CellKind.NUMBER).write();
+    strings = generator().cellKinds(CellKind.SHARED_STRING).distinctStrings(5000).stringSkew(1).write();
+    mixed = generator().cellKinds(CellKind.values()).write();
+    sparse = generator().emptyRowRatio(0.3).emptyCellRatio(0.5).write();
+  }
+
+  @AfterAll
+  public static void deleteWorkbooks() {
+    for(File file : new File[]{numbers, strings, mixed, sparse}) {
+      if(file != null) {
+        file.delete();
+      }
+    }
+  }
+
+  @Test
+  public void testNumbers() throws Exception {
+    expectBudget(numbers, JAVA_8 ? 3800 : 3900);
+  }
+
+  @Test
+  public void testSharedStrings() throws Exception {
+    expectBudget(strings, JAVA_8 ? 3500 : 3850);
+  }
+
+  @Test
+  public void testMixed() throws Exception {
+    expectBudget(mixed, JAVA_8 ? 4150 : 4500);
+  }
+
+  @Test
+  public void testSparse() throws Exception {
+    expectBudget(sparse, JAVA_8 ? 3750 : 4100);
+  }
+
+  private static WorkbookGenerator generator() {
+    return WorkbookGenerator.builder().rows(ROWS).columns(COLUMNS);
+  }
+
+  private static void expectBudget(File file, long bytesPerCell) throws Exception {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "per thread allocation counts aren't available");
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+    assumeTrue(threads.isThreadAllocatedMemorySupported(), "per thread allocation counts aren't available");
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    for(int i = 0; i < WARMUP; i++) {
+      read(file, threads);
+    }
+    double measured = read(file, threads);
+    assertTrue(measured <= bytesPerCell,
+        String.format("allocated %.1f bytes per cell, over the budget of %d", measured, bytesPerCell));
+  }
+
+  /**
+   * @return bytes allocated per cell while iterating the first sheet and reading every value
+   */
+  private static double read(File file, com.sun.management.ThreadMXBean threads) throws Exception {
+    long thread = Thread.currentThread().getId();
+    try(Workbook workbook = StreamingReader.builder().rowCacheSize(100).open(file)) {
+      long cells = 0;
+      long before = threads.getThreadAllocatedBytes(thread);
+      for(Row row : workbook.getSheetAt(0)) {
+        for(Cell cell : row) {
+          consume(cell);
+          cells++;
+        }
+      }
+      long allocated = threads.getThreadAllocatedBytes(thread) - before;
+      return (double) allocated / cells;
+    }
+  }
+
+  private static Object consume(Cell cell) {
+    switch(cell.getCellType()) {
+      case NUMERIC:
+        return cell.getNumericCellValue();
+      case STRING:
+        return cell.getStringCellValue();
+      case BOOLEAN:
+        return cell.getBooleanCellValue();
+      case FORMULA:
+        return cell.getCellFormula();
+      default:
+        return null;
+    }
+  }
+}
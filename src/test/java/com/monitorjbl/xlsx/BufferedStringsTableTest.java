@@ -1,14 +1,37 @@
 package com.monitorjbl.xlsx;
 
+import com.monitorjbl.xlsx.exceptions.ParseException;
 import com.monitorjbl.xlsx.sst.BufferedStringsTable;
+import com.monitorjbl.xlsx.sst.AppendableStringList;
+import com.monitorjbl.xlsx.sst.ByteArrayStringList;
+import com.monitorjbl.xlsx.sst.CompressedFileBackedList;
+import com.monitorjbl.xlsx.sst.FileBackedList;
+import com.monitorjbl.xlsx.sst.OffHeapStringList;
 import org.apache.poi.openxml4j.opc.OPCPackage;
 import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 public class BufferedStringsTableTest {
@@ -44,4 +67,139 @@ public class BufferedStringsTableTest {
       assertEquals("shared styled string", sst.getItemAt(0).getString());
     }
   }
+
+  @Test
+  public void testBackgroundLoading() throws Exception {
+    PipedOutputStream out = new PipedOutputStream();
+    PipedInputStream in = new PipedInputStream(out, 64 * 1024);
+    try(BufferedStringsTable sst = BufferedStringsTable.loadInBackground(new ByteArrayStringList(0), in)) {
+      out.write("<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">".getBytes(StandardCharsets.UTF_8));
+      out.write("<si><t>first</t></si><si><t>second</t></si>".getBytes(StandardCharsets.UTF_8));
+      out.flush();
+      assertEquals("second", sst.getItemAt(1).getString());
+
+      //waits for strings that haven't been written yet
+      CompletableFuture<String> pending = CompletableFuture.supplyAsync(() -> sst.getItemAt(2000).getString());
+      Thread.sleep(100);
+      assertFalse(pending.isDone());
+
+      for(int i = 2; i <= 3000; i++) {
+        out.write(("<si><t>value " + i + "</t></si>").getBytes(StandardCharsets.UTF_8));
+      }
+      out.write("</sst>".getBytes(StandardCharsets.UTF_8));
+      out.close();
+
+      assertEquals("value 2000", pending.get(10, TimeUnit.SECONDS));
+      assertEquals(3001, sst.getUniqueCount());
+      assertEquals("value 3000", sst.getItemAt(3000).getString());
+      assertEquals("first", sst.getItemAt(0).getString());
+    }
+  }
+
+  @Test
+  public void testBackgroundLoadingFailure() throws Exception {
+    byte[] xml = "<sst><si><t>first</t></si><si><t>second</t></sst>".getBytes(StandardCharsets.UTF_8);
+    try(BufferedStringsTable sst = BufferedStringsTable.loadInBackground(new ByteArrayStringList(0),
+        new ByteArrayInputStream(xml))) {
+      assertTrue(sst.isLoadedInBackground());
+      ParseException e = assertThrows(ParseException.class, () -> sst.getItemAt(1));
+      assertNotNull(e.getCause());
+      assertEquals("first", sst.getItemAt(0).getString());
+    }
+  }
+
+  @Test
+  public void testLookupsAfterBackgroundLoadingFailed() throws Exception {
+    //a sharedStrings.xml cut off part way through
+    byte[] xml = ("<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+        + "<si><t>first</t></si><si><t>second</t></si><si><t>thi").getBytes(StandardCharsets.UTF_8);
+    try(BufferedStringsTable sst = BufferedStringsTable.loadInBackground(new ByteArrayStringList(0),
+        new ByteArrayInputStream(xml))) {
+      //waits for the loader to give up
+      assertThrows(ParseException.class, sst::getUniqueCount);
+
+      for(int i = 0; i < 2; i++) {
+        ParseException e = assertThrows(ParseException.class, () -> sst.getItemAt(2));
+        assertNotNull(e.getCause());
+        e = assertThrows(ParseException.class, () -> sst.getString(5));
+        assertNotNull(e.getCause());
+      }
+      assertEquals("second", sst.getString(1));
+    }
+  }
+
+  @Test
+  public void testReadingWhileLoadingInBackground() throws Exception {
+    //enough strings for the index to grow past several chunks, and the strings past several pages
+    int count = 200_000;
+    StringBuilder xml = new StringBuilder("<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">");
+    for(int i = 0; i < count; i++) {
+      xml.append("<si><t>").append(value(i)).append("</t></si>");
+    }
+    byte[] bytes = xml.append("</sst>").toString().getBytes(StandardCharsets.UTF_8);
+
+    File file = File.createTempFile("list", ".sst");
+    file.deleteOnExit();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Supplier<AppendableStringList>> lists = Arrays.asList(
+          () -> new ByteArrayStringList(0),
+          () -> new OffHeapStringList(2 * 1024 * 1024, file, 0),
+          () -> newList(() -> new FileBackedList(file, 1024)),
+          () -> newList(() -> new CompressedFileBackedList(file, 1024)));
+      for(Supplier<AppendableStringList> list : lists) {
+        try(BufferedStringsTable sst = BufferedStringsTable.loadInBackground(list.get(), new ByteArrayInputStream(bytes))) {
+          List<Future<?>> readers = new ArrayList<>();
+          for(int t = 0; t < 4; t++) {
+            int offset = t;
+            readers.add(executor.submit(() -> {
+              //mostly just behind the loader, going back over what's loaded now and then
+              for(int i = offset; i < count; i += 4) {
+                assertEquals(value(i), sst.getString(i));
+                int back = (i * 31) % (i + 1);
+                assertEquals(value(back), sst.getString(back));
+              }
+            }));
+          }
+          for(Future<?> reader : readers) {
+            reader.get(60, TimeUnit.SECONDS);
+          }
+        }
+      }
+    } finally {
+      executor.shutdown();
+      file.delete();
+    }
+  }
+
+  private static String value(int i) {
+    return "value " + i + " of the shared strings";
+  }
+
+  private static AppendableStringList newList(Callable<AppendableStringList> list) {
+    try {
+      return list.call();
+    } catch(Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Test
+  public void testGetString() throws Exception {
+    String[] values = {"plain", "line_x000D_break", "_x0041__x0042_C", "not_xescaped_", ""};
+    StringBuilder xml = new StringBuilder("<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">");
+    for(String value : values) {
+      xml.append("<si><t>").append(value).append("</t></si>");
+    }
+    xml.append("</sst>");
+
+    try(BufferedStringsTable sst = BufferedStringsTable.getSharedStringsTable(new ByteArrayStringList(0),
+        new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8)))) {
+      for(int i = 0; i < values.length; i++) {
+        assertEquals(sst.getItemAt(i).getString(), sst.getString(i));
+      }
+      assertEquals("line\rbreak", sst.getString(1));
+      assertEquals("ABC", sst.getString(2));
+    }
+  }
 }
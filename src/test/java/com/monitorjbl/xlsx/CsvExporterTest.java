@@ -0,0 +1,227 @@
+package com.monitorjbl.xlsx;
+
+import com.monitorjbl.xlsx.CsvExporter.Quoting;
+import com.monitorjbl.xlsx.WorkbookGenerator.CellKind;
+import com.monitorjbl.xlsx.exceptions.NotSupportedException;
+import com.monitorjbl.xlsx.exceptions.ReadException;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CsvExporterTest {
+  private static File generated;
+  private static File values;
+  private static File phonetic;
+
+  @BeforeAll
+  public static void init() throws IOException {
+    Locale.setDefault(Locale.ENGLISH);
+    generated = WorkbookGenerator.builder()
+        .seed(3)
+        .rows(2000)
+        .columns(5)
+        .cellKinds(CellKind.NUMBER, CellKind.DATE, CellKind.SHARED_STRING, CellKind.INLINE_STRING, CellKind.FORMULA)
+        .emptyRowRatio(0.1)
+        .emptyCellRatio(0.2)
+        .write();
+    values = writeWorkbook();
+    phonetic = writePhoneticWorkbook();
+  }
+
+  @AfterAll
+  public static void deleteWorkbooks() {
+    for(File file : new File[]{generated, values, phonetic}) {
+      if(file != null) {
+        file.delete();
+      }
+    }
+  }
+
+  @Test
+  public void testMatchesCellValues() throws Exception {
+    for(boolean forwardOnly : new boolean[]{false, true}) {
+      StringBuilder expected = new StringBuilder();
+      try(Workbook workbook = StreamingReader.builder().open(generated)) {
+        int nextRow = 0;
+        for(Row row : workbook.getSheetAt(0)) {
+          for(; nextRow < row.getRowNum(); nextRow++) {
+            expected.append("\r\n");
+          }
+          int nextColumn = 0;
+          for(Cell cell : row) {
+            for(; nextColumn < cell.getColumnIndex(); nextColumn++) {
+              expected.append(nextColumn > 0 ? "\t" : "");
+            }
+            expected.append(nextColumn > 0 ? "\t" : "").append(cell.getStringCellValue());
+            nextColumn++;
+          }
+          expected.append("\r\n");
+          nextRow++;
+        }
+      }
+
+      StringWriter writer = new StringWriter();
+      try(
+          InputStream is = new FileInputStream(generated);
+          Workbook workbook = StreamingReader.builder().forwardOnly(forwardOnly).open(is)
+      ) {
+        CsvExporter.builder().delimiter('\t').quoting(Quoting.NONE).export(workbook.getSheetAt(0), writer);
+      }
+      assertEquals(expected.toString(), writer.toString());
+    }
+  }
+
+  @Test
+  public void testFormattedValues() throws Exception {
+    try(Workbook workbook = StreamingReader.builder().open(values)) {
+      StringWriter writer = new StringWriter();
+      CsvExporter.builder().export(workbook.getSheetAt(0), writer);
+      assertEquals("name,amount,,paid,when\r\n"
+          + "\r\n"
+          + "\"Smith, J\",1.50,,TRUE,2021-03-04\r\n"
+          + "\"say \"\"hi\"\"\",-2.00\r\n"
+          + "\"two\nlines\",,,FALSE\r\n"
+          + "\r\n"
+          + ",,,,late\r\n", writer.toString());
+    }
+  }
+
+  @Test
+  public void testRawValues() throws Exception {
+    try(Workbook workbook = StreamingReader.builder().open(values)) {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      CsvExporter.builder()
+          .formatted(false)
+          .quoting(Quoting.ALL)
+          .quote('\'')
+          .delimiter(';')
+          .lineSeparator("\n")
+          .columns(4)
+          .skipEmptyRows(true)
+          .export(workbook.getSheetAt(0), os);
+      assertEquals("'name';'amount';;'paid'\n"
+          + "'Smith, J';'1.5';;'1'\n"
+          + "'say \"hi\"';'-2.0';;\n"
+          + "'two\nlines';;;'0'\n", new String(os.toByteArray(), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  public void testPhoneticRunsSkipped() throws Exception {
+    try(Workbook workbook = StreamingReader.builder().open(phonetic)) {
+      StringWriter writer = new StringWriter();
+      CsvExporter.builder().export(workbook.getSheetAt(0), writer);
+      assertEquals("Tokyo,1\r\n", writer.toString());
+    }
+  }
+
+  @Test
+  public void testSheetAlreadyRead() throws Exception {
+    try(Workbook workbook = StreamingReader.builder().open(new File("src/test/resources/sheets.xlsx"))) {
+      workbook.getSheetAt(0).iterator().next();
+      assertThrows(ReadException.class, () -> CsvExporter.builder().export(workbook.getSheetAt(0), new StringWriter()));
+
+      StringWriter writer = new StringWriter();
+      CsvExporter.builder().export(workbook.getSheetAt(1), writer);
+      assertFalse(writer.toString().isEmpty());
+      assertFalse(workbook.getSheetAt(1).iterator().hasNext(), "the export read the sheet to the end");
+    }
+    try(Workbook workbook = new XSSFWorkbook()) {
+      Sheet sheet = workbook.createSheet();
+      assertThrows(NotSupportedException.class, () -> CsvExporter.builder().export(sheet, new StringWriter()));
+    }
+  }
+
+  /**
+   * Row 2 is missing, as are column C and some cells of the later rows. Row 6 only has formatting and
+   * row 7 only has a value in column E.
+   */
+  private static File writeWorkbook() throws IOException {
+    return TestUtils.writeWorkbook("csv-", workbook -> {
+      CellStyle amount = TestUtils.dataFormat(workbook, "0.00");
+      CellStyle date = TestUtils.dataFormat(workbook, "yyyy-mm-dd");
+
+      Sheet sheet = workbook.createSheet("data");
+      Row header = sheet.createRow(0);
+      header.createCell(0).setCellValue("name");
+      header.createCell(1).setCellValue("amount");
+      header.createCell(3).setCellValue("paid");
+      header.createCell(4).setCellValue("when");
+
+      Row first = sheet.createRow(2);
+      first.createCell(0).setCellValue("Smith, J");
+      first.createCell(1).setCellValue(1.5);
+      first.getCell(1).setCellStyle(amount);
+      first.createCell(3).setCellValue(true);
+      first.createCell(4).setCellValue(LocalDate.of(2021, 3, 4));
+      first.getCell(4).setCellStyle(date);
+
+      Row second = sheet.createRow(3);
+      second.createCell(0).setCellValue("say \"hi\"");
+      second.createCell(1).setCellFormula("-2");
+      second.getCell(1).setCellStyle(amount);
+
+      Row third = sheet.createRow(4);
+      third.createCell(0).setCellValue("two\nlines");
+      third.createCell(3).setCellValue(false);
+
+      Row styled = sheet.createRow(5);
+      styled.createCell(1).setCellStyle(amount);
+      styled.createCell(2).setCellStyle(amount);
+      sheet.createRow(6).createCell(4).setCellValue("late");
+    });
+  }
+
+  /**
+   * An inline string with a phonetic reading, which POI can't write itself.
+   */
+  private static File writePhoneticWorkbook() throws IOException {
+    File file = TestUtils.writeWorkbook("csv-", workbook -> workbook.createSheet("data").createRow(0).createCell(0));
+    String sheetXml = "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>"
+        + "<row r=\"1\"><c r=\"A1\" t=\"inlineStr\"><is><t>Tokyo</t><rPh sb=\"0\" eb=\"5\"><t>toukyou</t></rPh>"
+        + "<phoneticPr fontId=\"0\"/></is></c><c r=\"B1\"><v>1</v></c></row>"
+        + "</sheetData></worksheet>";
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try(ZipFile zip = new ZipFile(file); ZipOutputStream out = new ZipOutputStream(bytes)) {
+      for(ZipEntry entry : Collections.list(zip.entries())) {
+        out.putNextEntry(new ZipEntry(entry.getName()));
+        if(entry.getName().equals("xl/worksheets/sheet1.xml")) {
+          out.write(sheetXml.getBytes(StandardCharsets.UTF_8));
+        } else {
+          try(InputStream is = zip.getInputStream(entry)) {
+            IOUtils.copy(is, out);
+          }
+        }
+        out.closeEntry();
+      }
+    }
+    Files.write(file.toPath(), bytes.toByteArray());
+    return file;
+  }
+}
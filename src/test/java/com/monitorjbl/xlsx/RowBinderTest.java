@@ -0,0 +1,245 @@
+package com.monitorjbl.xlsx;
+
+import com.monitorjbl.xlsx.exceptions.ReadException;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RowBinderTest {
+
+  private static File tradesFile;
+
+  @BeforeAll
+  public static void writeWorkbooks() throws IOException {
+    tradesFile = writeWorkbook();
+  }
+
+  @AfterAll
+  public static void deleteWorkbooks() {
+    if(tradesFile != null) {
+      tradesFile.delete();
+    }
+  }
+
+  public enum Side {
+    BUY, SELL
+  }
+
+  public static class Trade {
+    private String name;
+    private int quantity;
+    private long id;
+    private double price;
+    private BigDecimal amount;
+    private LocalDate date;
+    private Side side;
+    private boolean settled;
+    Integer doubled;
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public void setQuantity(int quantity) {
+      this.quantity = quantity;
+    }
+
+    public void setId(long id) {
+      this.id = id;
+    }
+
+    public void setPrice(double price) {
+      this.price = price;
+    }
+
+    public void setAmount(BigDecimal amount) {
+      this.amount = amount;
+    }
+
+    public Trade setDate(LocalDate date) {
+      this.date = date;
+      return this;
+    }
+
+    public void setSide(Side side) {
+      this.side = side;
+    }
+
+    public void setSettled(boolean settled) {
+      this.settled = settled;
+    }
+  }
+
+  public static class ImmutableTrade {
+    final String name;
+    final int quantity;
+    final Side side;
+
+    public ImmutableTrade(String name, int quantity, Side side) {
+      this.name = name;
+      this.quantity = quantity;
+      this.side = side;
+    }
+  }
+
+  static class HiddenTrade {
+    private String name;
+    private int quantity;
+
+    private HiddenTrade() {
+    }
+
+    void setName(String name) {
+      this.name = name;
+    }
+  }
+
+  @Test
+  public void testSetters() throws Exception {
+    try(Workbook workbook = StreamingReader.builder().open(tradesFile)) {
+      RowBinder<Trade> binder = RowBinder.builder(Trade.class).column("Trade Date", "date").build();
+      List<Trade> trades;
+      try(Stream<Trade> stream = binder.stream(workbook.getSheetAt(0))) {
+        trades = stream.collect(Collectors.toList());
+      }
+      assertEquals(3, trades.size());
+
+      Trade first = trades.get(0);
+      assertEquals("Smith, J", first.name);
+      assertEquals(12, first.quantity);
+      assertEquals(9000000001L, first.id);
+      assertEquals(1.25, first.price);
+      assertEquals(new BigDecimal("10.5"), first.amount);
+      assertEquals(LocalDate.of(2021, 3, 4), first.date);
+      assertEquals(Side.BUY, first.side);
+      assertTrue(first.settled);
+      assertEquals(Integer.valueOf(4), first.doubled);
+
+      Trade second = trades.get(1);
+      assertEquals("Jones", second.name);
+      assertEquals(7, second.quantity, "quantities stored as text are parsed");
+      assertEquals(new BigDecimal("0.1"), second.amount);
+      assertEquals(LocalDate.of(2020, 1, 31), second.date);
+      assertEquals(Side.SELL, second.side, "enums match ignoring case");
+      assertFalse(second.settled);
+
+      Trade third = trades.get(2);
+      assertNull(third.name, "blank cells leave the default");
+      assertEquals(0, third.quantity);
+      assertNull(third.side);
+      assertEquals(Integer.valueOf(8), third.doubled);
+    }
+  }
+
+  @Test
+  public void testConstructor() throws Exception {
+    try(Workbook workbook = StreamingReader.builder().open(tradesFile)) {
+      Iterator<ImmutableTrade> trades = RowBinder.builder(ImmutableTrade.class).build().iterator(workbook.getSheetAt(0));
+      ImmutableTrade first = trades.next();
+      assertEquals("Smith, J", first.name);
+      assertEquals(12, first.quantity);
+      assertEquals(Side.BUY, first.side);
+      assertEquals(Side.SELL, trades.next().side);
+      ImmutableTrade third = trades.next();
+      assertNull(third.name);
+      assertEquals(0, third.quantity);
+      assertFalse(trades.hasNext());
+    }
+  }
+
+  @Test
+  public void testInaccessibleClass() throws Exception {
+    try(Workbook workbook = StreamingReader.builder().open(tradesFile)) {
+      Iterator<HiddenTrade> trades = RowBinder.builder(HiddenTrade.class).build().iterator(workbook.getSheetAt(0));
+      HiddenTrade first = trades.next();
+      assertEquals("Smith, J", first.name);
+      assertEquals(12, first.quantity);
+    }
+  }
+
+  @Test
+  public void testConversionError() throws Exception {
+    try(Workbook workbook = StreamingReader.builder().open(tradesFile)) {
+      Iterator<Trade> trades = RowBinder.builder(Trade.class).column("Name", "quantity").build().iterator(workbook.getSheetAt(0));
+      ReadException e = assertThrows(ReadException.class, trades::next);
+      assertEquals("Unable to read cell [trades!A2] as [quantity]", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testUnknownProperty() {
+    assertThrows(IllegalArgumentException.class, () -> RowBinder.builder(Trade.class).column("Name", "nickname").build());
+    assertThrows(IllegalArgumentException.class, () -> RowBinder.builder(HiddenTrade.class).column("Name", "doubled").build());
+  }
+
+  @Test
+  public void testNormalize() {
+    assertEquals("tradedate", RowBinder.normalize("Trade Date"));
+    assertEquals("tradedate", RowBinder.normalize("trade_date"));
+    assertEquals("tradedate", RowBinder.normalize(" tradeDate "));
+  }
+
+  /**
+   * The header has columns in a different order from the class, an unmapped "Notes"
+   * column, and a gap at column E.
+   */
+  private static File writeWorkbook() throws IOException {
+    return TestUtils.writeWorkbook("binder-", workbook -> {
+      CellStyle date = TestUtils.dataFormat(workbook, "yyyy-mm-dd");
+
+      Sheet sheet = workbook.createSheet("trades");
+      String[] headers = {"Name", "Quantity", "ID", "Price", null, "amount", "Trade Date", "SIDE", "settled", "Notes", "doubled"};
+      Row header = sheet.createRow(0);
+      for(int i = 0; i < headers.length; i++) {
+        if(headers[i] != null) {
+          header.createCell(i).setCellValue(headers[i]);
+        }
+      }
+
+      Row first = sheet.createRow(1);
+      first.createCell(0).setCellValue("Smith, J");
+      first.createCell(1).setCellValue(12);
+      first.createCell(2).setCellValue(9000000001L);
+      first.createCell(3).setCellValue(1.25);
+      first.createCell(5).setCellValue(10.5);
+      first.createCell(6).setCellValue(LocalDate.of(2021, 3, 4));
+      first.getCell(6).setCellStyle(date);
+      first.createCell(7).setCellValue("BUY");
+      first.createCell(8).setCellValue(true);
+      first.createCell(9).setCellValue("anything");
+      first.createCell(10).setCellFormula("ROW()*2");
+
+      Row second = sheet.createRow(2);
+      second.createCell(0).setCellValue("Jones");
+      second.createCell(1).setCellValue(" 7 ");
+      second.createCell(5).setCellValue(0.1);
+      second.createCell(6).setCellValue("2020-01-31");
+      second.createCell(7).setCellValue("sell");
+      second.createCell(8).setCellValue(false);
+
+      Row third = sheet.createRow(3);
+      third.createCell(0).setCellValue("");
+      third.createCell(7);
+      third.createCell(10).setCellFormula("ROW()*2");
+    });
+  }
+}
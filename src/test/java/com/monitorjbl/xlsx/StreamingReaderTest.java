@@ -1,6 +1,7 @@
 package com.monitorjbl.xlsx;
 
 import com.monitorjbl.xlsx.exceptions.MissingSheetException;
+import com.monitorjbl.xlsx.exceptions.ReadException;
 import org.apache.poi.openxml4j.opc.OPCPackage;
 import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.Cell;
@@ -15,6 +16,7 @@ import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -31,6 +33,7 @@ import java.util.Spliterators;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
+import static java.util.Arrays.asList;
 import static org.apache.poi.ss.usermodel.CellType.BOOLEAN;
 import static org.apache.poi.ss.usermodel.CellType.NUMERIC;
 import static org.apache.poi.ss.usermodel.CellType.STRING;
@@ -553,6 +556,44 @@ public class StreamingReaderTest {
     }
   }
 
+  @Test
+  public void testStreamingDecryption() throws Exception {
+    File encrypted = new File("src/test/resources/encrypted.xlsx");
+    try(
+        InputStream is = new FileInputStream(encrypted);
+        Workbook fromFile = StreamingReader.builder().password("test").streamingDecryption(true).open(encrypted);
+        Workbook fromStream = StreamingReader.builder().password("test").streamingDecryption(true).forwardOnly(true).open(is)) {
+      for(Workbook wb : asList(fromFile, fromStream)) {
+        Cell c = wb.getSheetAt(0).rowIterator().next().getCell(0);
+        assertEquals("Demo", c.getStringCellValue());
+        assertEquals("Demo", c.getRichStringCellValue().getString());
+      }
+    }
+  }
+
+  @Test
+  public void testIncorrectPassword() {
+    File encrypted = new File("src/test/resources/encrypted.xlsx");
+    assertThrows(ReadException.class, () -> StreamingReader.builder().password("wrong").open(encrypted));
+    assertThrows(ReadException.class, () -> StreamingReader.builder().password("wrong").streamingDecryption(true).open(encrypted));
+  }
+
+  @Test
+  public void testIncorrectPasswordForwardOnly() throws Exception {
+    File spoolDirectory = Files.createTempDirectory("spool").toFile();
+    try {
+      for(String name : new String[]{"encrypted.xlsx", "sheets.xlsx"}) {
+        try(InputStream is = new FileInputStream(new File("src/test/resources/" + name))) {
+          assertThrows(RuntimeException.class, () -> StreamingReader.builder().password("wrong").streamingDecryption(true)
+              .forwardOnly(true).spoolDirectory(spoolDirectory).open(is));
+        }
+        assertEquals(0, spoolDirectory.list().length, name + " should leave no spooled copy behind");
+      }
+    } finally {
+      spoolDirectory.delete();
+    }
+  }
+
   @Test
   public void testStringCellValue() throws Exception {
     try(
@@ -1,14 +1,22 @@
 package com.monitorjbl.xlsx;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Locale;
 
+import com.monitorjbl.xlsx.impl.StreamingCell;
+import com.monitorjbl.xlsx.impl.StreamingSheetReader;
+import com.monitorjbl.xlsx.sst.BufferedStringsTable;
+import com.monitorjbl.xlsx.sst.ByteArrayStringList;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.util.StaxHelper;
+import org.apache.poi.xssf.model.StylesTable;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
@@ -56,4 +64,46 @@ public class StreamingSheetTest {
     }
   }
 
+
+  @Test
+  public void testSharedStringsResolvedOnRead() throws Exception {
+    String ns = "xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"";
+    String sstXml = "<sst " + ns + "><si><t>first</t></si><si><t>second</t></si><si><t>third</t></si></sst>";
+    String sheetXml = "<worksheet " + ns + "><sheetData><row r=\"1\">"
+        + "<c r=\"A1\" t=\"s\"><v>2</v></c><c r=\"B1\" t=\"s\"><v>0</v></c><c r=\"C1\" t=\"s\"><v>2</v></c>"
+        + "<c r=\"D1\" t=\"inlineStr\"><is><t>inline</t></is></c><c r=\"E1\"><v>5</v></c>"
+        + "</row></sheetData></worksheet>";
+
+    int[] lookups = {0};
+    ByteArrayStringList list = new ByteArrayStringList(0) {
+      @Override
+      public String getAt(int index) {
+        lookups[0]++;
+        return super.getAt(index);
+      }
+    };
+    //strings from a table loaded in the background are only looked up when they're read
+    try(BufferedStringsTable sst = BufferedStringsTable.loadInBackground(list,
+        new ByteArrayInputStream(sstXml.getBytes(StandardCharsets.UTF_8)))) {
+      StreamingSheetReader reader = new StreamingSheetReader(sst, new StylesTable(),
+          StaxHelper.newXMLInputFactory().createXMLEventReader(new ByteArrayInputStream(sheetXml.getBytes(StandardCharsets.UTF_8))),
+          false, 10);
+      Row row = reader.iterator().next();
+
+      assertEquals(CellType.STRING, row.getCell(0).getCellType());
+      assertEquals(2, ((StreamingCell) row.getCell(0)).getSharedStringIndex());
+      assertEquals(0, ((StreamingCell) row.getCell(1)).getSharedStringIndex());
+      assertEquals(2, ((StreamingCell) row.getCell(2)).getSharedStringIndex());
+      assertEquals(-1, ((StreamingCell) row.getCell(3)).getSharedStringIndex());
+      assertEquals(-1, ((StreamingCell) row.getCell(4)).getSharedStringIndex());
+      assertEquals(0, lookups[0]);
+
+      assertEquals("third", row.getCell(0).getStringCellValue());
+      assertEquals("third", row.getCell(0).getStringCellValue());
+      assertEquals(1, lookups[0]);
+      assertEquals("first", row.getCell(1).getStringCellValue());
+      assertEquals("inline", row.getCell(3).getStringCellValue());
+      assertEquals(2, lookups[0]);
+    }
+  }
 }
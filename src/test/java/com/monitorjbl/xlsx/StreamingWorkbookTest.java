@@ -3,21 +3,34 @@ package com.monitorjbl.xlsx;
 import com.monitorjbl.xlsx.exceptions.ParseException;
 import fi.iki.elonen.NanoHTTPD;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Name;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.util.IOUtils;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import static com.monitorjbl.xlsx.TestUtils.expectCachedType;
 import static com.monitorjbl.xlsx.TestUtils.expectFormula;
@@ -27,10 +40,12 @@ import static com.monitorjbl.xlsx.TestUtils.expectType;
 import static com.monitorjbl.xlsx.TestUtils.getCellFromNextRow;
 import static com.monitorjbl.xlsx.TestUtils.nextRow;
 import static com.monitorjbl.xlsx.TestUtils.openWorkbook;
+import static java.util.Arrays.asList;
 import static org.apache.poi.ss.usermodel.CellType.FORMULA;
 import static org.apache.poi.ss.usermodel.CellType.NUMERIC;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -99,6 +114,24 @@ public class StreamingWorkbookTest {
     }
   }
 
+  @Test
+  public void testDefinedNames() throws Exception {
+    try(
+        InputStream is = new FileInputStream(new File("src/test/resources/formula_outside_cell.xlsx"));
+        Workbook workbook = StreamingReader.builder().open(is)
+    ) {
+      assertEquals(2, workbook.getNumberOfSheets());
+      assertTrue(workbook.isSheetHidden(1));
+
+      assertEquals(3, workbook.getNumberOfNames());
+      Name income = workbook.getName("Total_Monthly_Income");
+      assertEquals("'Manage My Money'!$C$4", income.getRefersToFormula());
+      assertEquals(-1, income.getSheetIndex());
+      assertFalse(income.isDeleted());
+      assertNull(workbook.getName("Missing"));
+    }
+  }
+
   @Test
   public void testFormulaCells() throws Exception {
     try(Workbook workbook = openWorkbook("formula_cell.xlsx")) {
@@ -174,6 +207,436 @@ public class StreamingWorkbookTest {
     }
   }
 
+  @Test
+  public void testForwardOnly() throws Exception {
+    String[] files = {"sheets.xlsx", "data_types.xlsx", "hidden.xlsx", "1904Dates.xlsx", "gaps.xlsx",
+        "inline.xlsx", "formula_cell.xlsx", "empty_sheet.xlsx", "large.xlsx"};
+    for(String name : files) {
+      File f = new File("src/test/resources/" + name);
+      try(
+          Workbook expected = StreamingReader.builder().open(f);
+          InputStream is = new FileInputStream(f);
+          Workbook actual = StreamingReader.builder().forwardOnly(true).open(is)
+      ) {
+        assertEquals(contents(expected), contents(actual), name + " should read the same");
+      }
+    }
+  }
+
+  @Test
+  public void testForwardOnlySheetsOutOfOrder() throws Exception {
+    try(
+        InputStream is = new FileInputStream(new File("src/test/resources/sheets.xlsx"));
+        Workbook workbook = StreamingReader.builder().forwardOnly(true).sstCacheSizeBytes(1024).rowCacheSize(1).open(is)
+    ) {
+      Iterator<Row> alpha = workbook.getSheetAt(0).rowIterator();
+      assertEquals("stuff", alpha.next().getCell(0).getStringCellValue());
+
+      //skips past the rest of the first sheet
+      Row rowZ = workbook.getSheetAt(1).rowIterator().next();
+      assertEquals("yeah", rowZ.getCell(0).getStringCellValue());
+
+      int remaining = 0;
+      while(alpha.hasNext()) {
+        alpha.next();
+        remaining++;
+      }
+      assertEquals(countRows("src/test/resources/sheets.xlsx", 0) - 1, remaining);
+    }
+  }
+
+  @Test
+  public void testInMemory() throws Exception {
+    String[] files = {"sheets.xlsx", "data_types.xlsx", "hidden.xlsx", "1904Dates.xlsx", "formula_cell.xlsx", "large.xlsx"};
+    for(String name : files) {
+      File f = new File("src/test/resources/" + name);
+      byte[] bytes = Files.readAllBytes(f.toPath());
+
+      //Read out of the middle of a direct buffer, to make sure only the remaining bytes are used
+      ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 20);
+      buffer.position(10);
+      buffer.put(bytes);
+      buffer.position(10);
+      buffer.limit(10 + bytes.length);
+
+      try(
+          Workbook expected = StreamingReader.builder().open(f);
+          Workbook fromBytes = StreamingReader.builder().open(bytes);
+          Workbook fromBuffer = StreamingReader.builder().sstCacheSizeBytes(1024).open(buffer);
+          Workbook fromPath = StreamingReader.builder().open(f.toPath())
+      ) {
+        List<String> contents = contents(expected);
+        assertEquals(contents, contents(fromBytes), name + " should read the same from a byte array");
+        assertEquals(contents, contents(fromBuffer), name + " should read the same from a buffer");
+        assertEquals(contents, contents(fromPath), name + " should read the same from a path");
+      }
+      assertEquals(10, buffer.position());
+    }
+  }
+
+  @Test
+  public void testInMemoryEncrypted() throws Exception {
+    byte[] bytes = Files.readAllBytes(new File("src/test/resources/encrypted.xlsx").toPath());
+    try(Workbook workbook = StreamingReader.builder().password("test").open(bytes)) {
+      assertEquals("Demo", workbook.getSheetAt(0).rowIterator().next().getCell(0).getStringCellValue());
+    }
+  }
+
+  @Test
+  public void testCompactSharedStrings() throws Exception {
+    String[] files = {"sheets.xlsx", "data_types.xlsx", "inline.xlsx", "shared_styled_string.xlsx", "large.xlsx"};
+    for(String name : files) {
+      File f = new File("src/test/resources/" + name);
+      try(
+          Workbook expected = StreamingReader.builder().open(f);
+          Workbook compact = StreamingReader.builder().compactSharedStrings(true).open(f);
+          Workbook cached = StreamingReader.builder().compactSharedStrings(true).sstCacheSizeBytes(1024).open(f);
+          InputStream is = new FileInputStream(f);
+          Workbook forwardOnly = StreamingReader.builder().compactSharedStrings(true).forwardOnly(true).open(is)
+      ) {
+        List<String> contents = contents(expected);
+        assertEquals(contents, contents(compact), name + " should read the same");
+        assertEquals(contents, contents(cached), name + " should read the same with a cache");
+        assertEquals(contents, contents(forwardOnly), name + " should read the same forward-only");
+      }
+    }
+  }
+
+  @Test
+  public void testOffHeapSharedStrings() throws Exception {
+    String[] files = {"sheets.xlsx", "data_types.xlsx", "shared_styled_string.xlsx", "large.xlsx"};
+    for(String name : files) {
+      File f = new File("src/test/resources/" + name);
+      try(
+          Workbook expected = StreamingReader.builder().open(f);
+          Workbook offHeap = StreamingReader.builder().offHeapSharedStrings(16 * 1024 * 1024).open(f);
+          Workbook overflowing = StreamingReader.builder().offHeapSharedStrings(64).sstCacheSizeBytes(1024).open(f)
+      ) {
+        List<String> contents = contents(expected);
+        assertEquals(contents, contents(offHeap), name + " should read the same");
+        assertEquals(contents, contents(overflowing), name + " should read the same past the budget");
+      }
+    }
+  }
+
+  @Test
+  public void testLazySharedStrings() throws Exception {
+    String[] files = {"sheets.xlsx", "data_types.xlsx", "shared_styled_string.xlsx", "large.xlsx"};
+    for(String name : files) {
+      File f = new File("src/test/resources/" + name);
+      try(
+          Workbook expected = StreamingReader.builder().open(f);
+          Workbook lazy = StreamingReader.builder().lazySharedStrings(true).open(f);
+          Workbook cached = StreamingReader.builder().lazySharedStrings(true).sstCacheSizeBytes(1024).open(f);
+          InputStream is = new FileInputStream(f);
+          Workbook forwardOnly = StreamingReader.builder().lazySharedStrings(true).forwardOnly(true).open(is)
+      ) {
+        List<String> contents = contents(expected);
+        assertEquals(contents, contents(lazy), name + " should read the same");
+        assertEquals(contents, contents(cached), name + " should read the same with a cache");
+        assertEquals(contents, contents(forwardOnly), name + " should read the same forward-only");
+      }
+    }
+  }
+
+  @Test
+  public void testBackgroundSharedStrings() throws Exception {
+    String[] files = {"sheets.xlsx", "data_types.xlsx", "shared_styled_string.xlsx", "large.xlsx"};
+    for(String name : files) {
+      File f = new File("src/test/resources/" + name);
+      try(
+          Workbook expected = StreamingReader.builder().open(f);
+          Workbook background = StreamingReader.builder().backgroundSharedStrings(true).open(f);
+          Workbook cached = StreamingReader.builder().backgroundSharedStrings(true).sstCacheSizeBytes(1024).open(f);
+          InputStream is = new FileInputStream(f);
+          Workbook forwardOnly = StreamingReader.builder().backgroundSharedStrings(true).forwardOnly(true).open(is)
+      ) {
+        List<String> contents = contents(expected);
+        assertEquals(contents, contents(background), name + " should read the same");
+        assertEquals(contents, contents(cached), name + " should read the same with a cache");
+        assertEquals(contents, contents(forwardOnly), name + " should read the same forward-only");
+      }
+
+      //closing before the strings have loaded
+      StreamingReader.builder().backgroundSharedStrings(true).open(f).close();
+    }
+  }
+
+  @Test
+  public void testCompressedSharedStrings() throws Exception {
+    String[] files = {"sheets.xlsx", "data_types.xlsx", "shared_styled_string.xlsx", "large.xlsx"};
+    for(String name : files) {
+      File f = new File("src/test/resources/" + name);
+      try(
+          Workbook expected = StreamingReader.builder().open(f);
+          Workbook compressed = StreamingReader.builder().sstCacheSizeBytes(1024).compressSharedStrings(true).open(f)
+      ) {
+        assertEquals(contents(expected), contents(compressed), name + " should read the same");
+      }
+    }
+  }
+
+  @Test
+  public void testStringsReadAfterClose() throws Exception {
+    File f = new File("src/test/resources/sheets.xlsx");
+    List<String> contents;
+    try(Workbook expected = StreamingReader.builder().open(f)) {
+      contents = contents(expected);
+    }
+
+    List<String> sheetNames = new ArrayList<>();
+    List<Cell> cells = new ArrayList<>();
+    try(Workbook workbook = StreamingReader.builder().sstCacheSizeBytes(1024).rowCacheSize(1).open(f)) {
+      for(Sheet sheet : workbook) {
+        for(Row row : sheet) {
+          for(Cell cell : row) {
+            sheetNames.add(sheet.getSheetName());
+            cells.add(cell);
+          }
+        }
+      }
+    }
+    List<String> afterClose = new ArrayList<>();
+    for(int i = 0; i < cells.size(); i++) {
+      Cell cell = cells.get(i);
+      afterClose.add(sheetNames.get(i) + "!" + cell.getRowIndex() + ":" + cell.getColumnIndex() + "="
+          + cell.getCellType() + ":" + cell.getStringCellValue());
+    }
+    assertEquals(contents, afterClose);
+
+    //deferred strings are looked up at close for the rows the reader still holds
+    Row first;
+    try(Workbook workbook = StreamingReader.builder().deferSharedStrings(true).sstCacheSizeBytes(1024).open(f)) {
+      first = workbook.getSheetAt(0).iterator().next();
+    }
+    assertEquals(contents.get(0), "SheetAlpha!0:0=STRING:" + first.getCell(0).getStringCellValue());
+  }
+
+  @Test
+  public void testMetrics() throws Exception {
+    for(boolean forwardOnly : new boolean[]{false, true}) {
+      RecordingMetrics metrics = new RecordingMetrics();
+      int rows = 0;
+      int cells = 0;
+      try(
+          InputStream is = new FileInputStream(new File("src/test/resources/sheets.xlsx"));
+          Workbook workbook = StreamingReader.builder().forwardOnly(forwardOnly).sstCacheSizeBytes(1024).rowCacheSize(1)
+              .metrics(metrics).open(is)
+      ) {
+        assertEquals(0, metrics.firstRows);
+        for(Sheet sheet : workbook) {
+          for(Row row : sheet) {
+            rows++;
+            cells += row.getPhysicalNumberOfCells();
+            row.getCell(0).getStringCellValue();
+          }
+        }
+        assertEquals(1, metrics.firstRows);
+        assertEquals(rows, metrics.rows);
+        assertEquals(cells, metrics.cells);
+        assertEquals(2, metrics.sheetsRead.size(), "every sheet read to the end is reported straight away");
+      }
+
+      assertTrue(rows > 0);
+      assertEquals(asList("SheetAlpha", "SheetZulu"), metrics.sheetsRead);
+      assertTrue(metrics.compressedBytes > 0, "compressed bytes");
+      assertTrue(metrics.inflatedBytes > metrics.compressedBytes, "inflated bytes");
+      assertEquals(1, metrics.sharedStringReports);
+      assertEquals(rows, metrics.sharedStringLookups, "one lookup for each string read");
+      assertTrue(metrics.tempFiles >= (forwardOnly ? 1 : 2), "sst cache and, unless forward-only, the spooled stream");
+      assertTrue(metrics.tempFileBytes > 0);
+    }
+  }
+
+  @Test
+  public void testProgress() throws Exception {
+    File file = WorkbookGenerator.builder().rows(20_000).columns(5).write();
+    try {
+      for(boolean forwardOnly : new boolean[]{false, true}) {
+        List<long[]> reports = new ArrayList<>();
+        try(
+            InputStream is = new FileInputStream(file);
+            Workbook workbook = StreamingReader.builder().forwardOnly(forwardOnly).rowCacheSize(500)
+                .progress((sheetName, compressedBytesRead, compressedSize, rowsRead, estimatedRows) -> {
+                  assertEquals("Sheet1", sheetName);
+                  reports.add(new long[]{compressedBytesRead, compressedSize, rowsRead, estimatedRows});
+                })
+                .progressInterval(0)
+                .open(is)
+        ) {
+          for(Row row : workbook.getSheetAt(0)) {
+            row.getCell(0);
+          }
+        }
+
+        assertTrue(reports.size() > 2, "reports: " + reports.size());
+        long[] last = reports.get(reports.size() - 1);
+        assertTrue(last[1] > 0, "compressed size");
+        assertEquals(last[1], last[0], "the end of the sheet is the whole entry");
+        assertEquals(20_000, last[2]);
+        assertEquals(20_000, last[3]);
+        long[] first = reports.get(0);
+        assertTrue(first[0] > 0 && first[0] < last[1] / 2, "position after the first batch: " + first[0]);
+        for(int i = 1; i < reports.size(); i++) {
+          assertTrue(reports.get(i)[0] >= reports.get(i - 1)[0], "position only moves forward");
+          assertTrue(reports.get(i)[2] >= reports.get(i - 1)[2], "row count only moves forward");
+        }
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testForwardOnlyProgressAfterSharedStrings() throws Exception {
+    File file = WorkbookGenerator.builder().rows(20_000).columns(5).write();
+    try {
+      //a sheet after the shared strings is read straight off the stream, and its
+      //streamed entry only gives its sizes once it's been read to the end
+      byte[] bytes = moveToEnd(file, "xl/worksheets/sheet1.xml");
+      List<long[]> reports = new ArrayList<>();
+      try(Workbook workbook = StreamingReader.builder().forwardOnly(true).rowCacheSize(500)
+          .progress((sheetName, compressedBytesRead, compressedSize, rowsRead, estimatedRows) ->
+              reports.add(new long[]{compressedBytesRead, compressedSize, rowsRead}))
+          .progressInterval(0)
+          .open(new ByteArrayInputStream(bytes))) {
+        for(Row row : workbook.getSheetAt(0)) {
+          row.getCell(0);
+        }
+      }
+
+      assertTrue(reports.size() > 2, "reports: " + reports.size());
+      long[] first = reports.get(0);
+      long[] last = reports.get(reports.size() - 1);
+      assertTrue(last[1] > 0, "compressed size");
+      assertEquals(last[1], last[0], "the end of the sheet is the whole entry");
+      assertTrue(first[0] > 0 && first[0] < last[1] / 2, "position after the first batch: " + first[0]);
+      for(int i = 1; i < reports.size(); i++) {
+        assertTrue(reports.get(i)[0] >= reports.get(i - 1)[0], "position only moves forward");
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * Rewrites a package with one of its entries last, and with every entry's sizes after its data.
+   */
+  private static byte[] moveToEnd(File file, String name) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try(ZipFile zip = new ZipFile(file); ZipOutputStream out = new ZipOutputStream(bytes)) {
+      List<ZipEntry> entries = new ArrayList<>(Collections.list(zip.entries()));
+      entries.sort(Comparator.comparing(entry -> entry.getName().equals(name)));
+      for(ZipEntry entry : entries) {
+        out.putNextEntry(new ZipEntry(entry.getName()));
+        try(InputStream is = zip.getInputStream(entry)) {
+          IOUtils.copy(is, out);
+        }
+        out.closeEntry();
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  @Test
+  public void testProgressInterval() throws Exception {
+    List<Integer> rows = new ArrayList<>();
+    try(Workbook workbook = StreamingReader.builder().rowCacheSize(1)
+        .progress((sheetName, compressedBytesRead, compressedSize, rowsRead, estimatedRows) -> rows.add(rowsRead))
+        .progressInterval(60_000)
+        .open(new File("src/test/resources/sheets.xlsx"))) {
+      for(Row row : workbook.getSheetAt(0)) {
+        row.getCell(0);
+      }
+    }
+    assertEquals(1, rows.size(), "only the end of the sheet falls outside the interval");
+  }
+
+  private static class RecordingMetrics implements ReaderMetrics {
+    int firstRows;
+    int rows;
+    int cells;
+    List<String> sheetsRead = new ArrayList<>();
+    long compressedBytes;
+    long inflatedBytes;
+    int sharedStringReports;
+    long sharedStringLookups;
+    int tempFiles;
+    long tempFileBytes;
+
+    @Override
+    public void firstRow(String sheetName, long nanos) {
+      assertTrue(nanos > 0);
+      firstRows++;
+    }
+
+    @Override
+    public void rowsParsed(String sheetName, int rows, int cells, long nanos) {
+      this.rows += rows;
+      this.cells += cells;
+    }
+
+    @Override
+    public void sheetRead(String sheetName, long compressedBytes, long inflatedBytes) {
+      sheetsRead.add(sheetName);
+      this.compressedBytes += compressedBytes;
+      this.inflatedBytes += inflatedBytes;
+    }
+
+    @Override
+    public void sharedStringLookups(long cacheHits, long cacheMisses, long diskReads) {
+      sharedStringReports++;
+      sharedStringLookups += cacheHits + cacheMisses;
+      assertEquals(cacheMisses, diskReads);
+    }
+
+    @Override
+    public void tempFileWritten(long bytes) {
+      tempFiles++;
+      tempFileBytes += bytes;
+    }
+  }
+
+  @Test
+  public void testSpoolDirectory() throws Exception {
+    File spoolDirectory = Files.createTempDirectory("spool").toFile();
+    try {
+      try(
+          InputStream is = new FileInputStream(new File("src/test/resources/sheets.xlsx"));
+          Workbook workbook = StreamingReader.builder().spoolDirectory(spoolDirectory).open(is)
+      ) {
+        assertEquals(1, spoolDirectory.list().length);
+        assertEquals("yeah", workbook.getSheetAt(1).rowIterator().next().getCell(0).getStringCellValue());
+      }
+      assertEquals(0, spoolDirectory.list().length);
+    } finally {
+      spoolDirectory.delete();
+    }
+  }
+
+  private static int countRows(String file, int sheet) throws IOException {
+    try(Workbook workbook = StreamingReader.builder().open(new File(file))) {
+      int rows = 0;
+      for(Row ignored : workbook.getSheetAt(sheet)) {
+        rows++;
+      }
+      return rows;
+    }
+  }
+
+  private static List<String> contents(Workbook workbook) {
+    List<String> contents = new ArrayList<>();
+    for(Sheet sheet : workbook) {
+      for(Row row : sheet) {
+        for(Cell cell : row) {
+          contents.add(sheet.getSheetName() + "!" + cell.getRowIndex() + ":" + cell.getColumnIndex() + "="
+              + cell.getCellType() + ":" + cell.getStringCellValue());
+        }
+      }
+    }
+    return contents;
+  }
+
   @Test
   public void testEntityExpansion() {
     assertThrows(ParseException.class, () -> ExploitServer.withServer(s -> fail("Should not have made request"), () -> {
@@ -1,14 +1,21 @@
 package com.monitorjbl.xlsx;
 
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.Iterator;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -21,6 +28,25 @@ final class TestUtils {
     }
   }
 
+  /**
+   * Writes a workbook filled in by {@code contents} to a temporary file, with its formulas evaluated.
+   */
+  static File writeWorkbook(String prefix, Consumer<XSSFWorkbook> contents) throws IOException {
+    File file = Files.createTempFile(prefix, ".xlsx").toFile();
+    try(XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream os = new FileOutputStream(file)) {
+      contents.accept(workbook);
+      workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+      workbook.write(os);
+    }
+    return file;
+  }
+
+  static CellStyle dataFormat(Workbook workbook, String format) {
+    CellStyle style = workbook.createCellStyle();
+    style.setDataFormat(workbook.createDataFormat().getFormat(format));
+    return style;
+  }
+
   static void expectSameStringContent(Cell cell1, Cell cell2) {
     assertEquals(cell1.getStringCellValue(), cell2.getStringCellValue(),
         "Cell " + ref(cell1) + " has should equal cell " + ref(cell2) + " string value.");
@@ -0,0 +1,389 @@
+package com.monitorjbl.xlsx;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes synthetic workbooks of any size straight to SpreadsheetML, for tests and
+ * benchmarks that need more data than the checked in files have. Going through POI
+ * would take longer than reading the result does.
+ * <p>
+ * Everything is drawn from a {@link Random} with a fixed seed, and zip entries get a
+ * fixed timestamp whatever the time zone, so the same settings always produce the
+ * same bytes.
+ * </p>
+ */
+public class WorkbookGenerator {
+  private static final String NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+  private static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+  private static final LocalDateTime ENTRY_TIME = LocalDateTime.of(2017, 7, 14, 12, 0);
+  private static final int DATE_STYLE = 1;
+  private static final int NUMBER_STYLE = 2;
+
+  public enum CellKind {
+    /** a number formatted with two decimals */
+    NUMBER,
+    /** a date between 2017 and 2027 */
+    DATE,
+    BOOLEAN,
+    /** a string from the shared strings table */
+    SHARED_STRING,
+    INLINE_STRING,
+    /** {@code ROW()*2} with its cached result */
+    FORMULA
+  }
+
+  private long seed = 0;
+  private int sheets = 1;
+  private int rows = 1000;
+  private int columns = 10;
+  private CellKind[] cellKinds = {CellKind.NUMBER, CellKind.SHARED_STRING};
+  private int distinctStrings = 1000;
+  private double stringSkew = 0;
+  private double emptyCellRatio = 0;
+  private double emptyRowRatio = 0;
+  private int[] hiddenColumns = new int[0];
+
+  public static WorkbookGenerator builder() {
+    return new WorkbookGenerator();
+  }
+
+  /**
+   * <p>Defaults to 0</p>
+   */
+  public WorkbookGenerator seed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  /**
+   * Number of sheets, each with the same layout and different values.
+   * <p>Defaults to 1</p>
+   */
+  public WorkbookGenerator sheets(int sheets) {
+    this.sheets = sheets;
+    return this;
+  }
+
+  /**
+   * Rows per sheet, including any left empty.
+   * <p>Defaults to 1000</p>
+   */
+  public WorkbookGenerator rows(int rows) {
+    this.rows = rows;
+    return this;
+  }
+
+  /**
+   * <p>Defaults to 10</p>
+   */
+  public WorkbookGenerator columns(int columns) {
+    this.columns = columns;
+    return this;
+  }
+
+  /**
+   * What the columns hold. Columns take these in turn, so repeating a kind makes more
+   * of the columns hold it.
+   * <p>Defaults to {@code NUMBER, SHARED_STRING}</p>
+   */
+  public WorkbookGenerator cellKinds(CellKind... cellKinds) {
+    this.cellKinds = cellKinds.clone();
+    return this;
+  }
+
+  /**
+   * Number of entries in the shared strings table.
+   * <p>Defaults to 1000</p>
+   */
+  public WorkbookGenerator distinctStrings(int distinctStrings) {
+    this.distinctStrings = distinctStrings;
+    return this;
+  }
+
+  /**
+   * Exponent of the Zipf distribution shared strings are picked with: 0 uses them all
+   * equally often, and at 1 or more a handful of them account for most cells.
+   * <p>Defaults to 0</p>
+   */
+  public WorkbookGenerator stringSkew(double stringSkew) {
+    this.stringSkew = stringSkew;
+    return this;
+  }
+
+  /**
+   * Share of cells that are left out of otherwise populated rows.
+   * <p>Defaults to 0</p>
+   */
+  public WorkbookGenerator emptyCellRatio(double emptyCellRatio) {
+    this.emptyCellRatio = emptyCellRatio;
+    return this;
+  }
+
+  /**
+   * Share of rows that are left out entirely.
+   * <p>Defaults to 0</p>
+   */
+  public WorkbookGenerator emptyRowRatio(double emptyRowRatio) {
+    this.emptyRowRatio = emptyRowRatio;
+    return this;
+  }
+
+  /**
+   * 0-based indexes of columns to mark as hidden.
+   * <p>Defaults to none</p>
+   */
+  public WorkbookGenerator hiddenColumns(int... hiddenColumns) {
+    this.hiddenColumns = hiddenColumns.clone();
+    return this;
+  }
+
+  /**
+   * @return a new temp file holding the workbook, which the caller should delete
+   */
+  public File write() throws IOException {
+    File file = Files.createTempFile("generated-", ".xlsx").toFile();
+    try {
+      write(file);
+    } catch(IOException | RuntimeException e) {
+      file.delete();
+      throw e;
+    }
+    return file;
+  }
+
+  public void write(File file) throws IOException {
+    try(OutputStream os = new FileOutputStream(file)) {
+      write(os);
+    }
+  }
+
+  /**
+   * Writes the workbook to a stream, which is left open.
+   */
+  public void write(OutputStream os) throws IOException {
+    Random random = new Random(seed);
+    double[] stringDistribution = stringDistribution();
+    String[] columnNames = new String[columns];
+    for(int c = 0; c < columns; c++) {
+      columnNames[c] = columnName(c);
+    }
+
+    ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(os, 64 * 1024));
+    Writer writer = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+    putEntry(zip, writer, "[Content_Types].xml", contentTypes());
+    putEntry(zip, writer, "_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+        + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+        + "<Relationship Id=\"rId1\" Type=\"" + REL_NS + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+        + "</Relationships>");
+    putEntry(zip, writer, "xl/workbook.xml", workbook());
+    putEntry(zip, writer, "xl/_rels/workbook.xml.rels", workbookRelationships());
+
+    //sheets come before styles and shared strings, in the order Excel writes them
+    long sharedStringCount = 0;
+    for(int s = 0; s < sheets; s++) {
+      zip.putNextEntry(entry("xl/worksheets/sheet" + (s + 1) + ".xml"));
+      sharedStringCount += writeSheet(writer, random, stringDistribution, columnNames);
+      writer.flush();
+      zip.closeEntry();
+    }
+
+    putEntry(zip, writer, "xl/styles.xml", styles());
+    zip.putNextEntry(entry("xl/sharedStrings.xml"));
+    writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>");
+    writer.write("<sst xmlns=\"" + NS + "\" count=\"" + sharedStringCount + "\" uniqueCount=\"" + distinctStrings + "\">");
+    for(int i = 0; i < distinctStrings; i++) {
+      writer.write("<si><t>");
+      writer.write(sharedString(i));
+      writer.write("</t></si>");
+    }
+    writer.write("</sst>");
+    writer.flush();
+    zip.closeEntry();
+    zip.finish();
+    zip.flush();
+  }
+
+  /**
+   * @return number of shared string references written
+   */
+  private long writeSheet(Writer writer, Random random, double[] stringDistribution, String[] columnNames)
+      throws IOException {
+    writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>");
+    writer.write("<worksheet xmlns=\"" + NS + "\" xmlns:r=\"" + REL_NS + "\">");
+    writer.write("<dimension ref=\"A1:" + columnNames[columns - 1] + rows + "\"/>");
+    if(hiddenColumns.length > 0) {
+      writer.write("<cols>");
+      for(int c : hiddenColumns) {
+        writer.write("<col min=\"" + (c + 1) + "\" max=\"" + (c + 1) + "\" width=\"10\" hidden=\"1\" customWidth=\"1\"/>");
+      }
+      writer.write("</cols>");
+    }
+    writer.write("<sheetData>");
+
+    long sharedStringCount = 0;
+    StringBuilder sb = new StringBuilder(256);
+    for(int r = 1; r <= rows; r++) {
+      if(emptyRowRatio > 0 && random.nextDouble() < emptyRowRatio) {
+        continue;
+      }
+      sb.setLength(0);
+      sb.append("<row r=\"").append(r).append("\">");
+      for(int c = 0; c < columns; c++) {
+        if(emptyCellRatio > 0 && random.nextDouble() < emptyCellRatio) {
+          continue;
+        }
+        sb.append("<c r=\"").append(columnNames[c]).append(r).append('"');
+        switch(cellKinds[c % cellKinds.length]) {
+          case NUMBER:
+            sb.append(" s=\"" + NUMBER_STYLE + "\"><v>").append(random.nextInt(100_000_000) / 100.0).append("</v>");
+            break;
+          case DATE:
+            //days since 1900, with a time of day
+            sb.append(" s=\"" + DATE_STYLE + "\"><v>").append(42736 + random.nextInt(3652) + random.nextInt(1440) / 1440.0)
+                .append("</v>");
+            break;
+          case BOOLEAN:
+            sb.append(" t=\"b\"><v>").append(random.nextBoolean() ? 1 : 0).append("</v>");
+            break;
+          case SHARED_STRING:
+            sb.append(" t=\"s\"><v>").append(pick(random, stringDistribution)).append("</v>");
+            sharedStringCount++;
+            break;
+          case INLINE_STRING:
+            sb.append(" t=\"inlineStr\"><is><t>inline ").append(random.nextInt(distinctStrings)).append("</t></is>");
+            break;
+          case FORMULA:
+            sb.append(" s=\"" + NUMBER_STYLE + "\"><f>ROW()*2</f><v>").append(r * 2).append("</v>");
+            break;
+          default:
+            throw new IllegalStateException();
+        }
+        sb.append("</c>");
+      }
+      sb.append("</row>");
+      writer.append(sb);
+    }
+
+    writer.write("</sheetData></worksheet>");
+    return sharedStringCount;
+  }
+
+  /**
+   * @return the cumulative probability of picking each shared string, or null to pick them uniformly
+   */
+  private double[] stringDistribution() {
+    if(stringSkew <= 0) {
+      return null;
+    }
+    double[] cdf = new double[distinctStrings];
+    double total = 0;
+    for(int i = 0; i < distinctStrings; i++) {
+      total += 1 / Math.pow(i + 1, stringSkew);
+      cdf[i] = total;
+    }
+    for(int i = 0; i < distinctStrings; i++) {
+      cdf[i] /= total;
+    }
+    return cdf;
+  }
+
+  private int pick(Random random, double[] distribution) {
+    if(distribution == null) {
+      return random.nextInt(distinctStrings);
+    }
+    int idx = Arrays.binarySearch(distribution, random.nextDouble());
+    return Math.min(idx < 0 ? -idx - 1 : idx, distinctStrings - 1);
+  }
+
+  static String sharedString(int idx) {
+    return "shared string " + idx;
+  }
+
+  static String columnName(int column) {
+    StringBuilder sb = new StringBuilder();
+    for(int c = column + 1; c > 0; c = (c - 1) / 26) {
+      sb.insert(0, (char) ('A' + (c - 1) % 26));
+    }
+    return sb.toString();
+  }
+
+  private String contentTypes() {
+    StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+        + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+        + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+        + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+        + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+        + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>"
+        + "<Override PartName=\"/xl/sharedStrings.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sharedStrings+xml\"/>");
+    for(int s = 1; s <= sheets; s++) {
+      sb.append("<Override PartName=\"/xl/worksheets/sheet").append(s)
+          .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+    }
+    return sb.append("</Types>").toString();
+  }
+
+  private String workbook() {
+    StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+        + "<workbook xmlns=\"" + NS + "\" xmlns:r=\"" + REL_NS + "\"><sheets>");
+    for(int s = 1; s <= sheets; s++) {
+      sb.append("<sheet name=\"Sheet").append(s).append("\" sheetId=\"").append(s).append("\" r:id=\"rId").append(s).append("\"/>");
+    }
+    return sb.append("</sheets></workbook>").toString();
+  }
+
+  private String workbookRelationships() {
+    StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+        + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+    for(int s = 1; s <= sheets; s++) {
+      sb.append("<Relationship Id=\"rId").append(s).append("\" Type=\"" + REL_NS + "/worksheet\" Target=\"worksheets/sheet")
+          .append(s).append(".xml\"/>");
+    }
+    sb.append("<Relationship Id=\"rId").append(sheets + 1).append("\" Type=\"" + REL_NS + "/styles\" Target=\"styles.xml\"/>");
+    sb.append("<Relationship Id=\"rId").append(sheets + 2).append("\" Type=\"" + REL_NS + "/sharedStrings\" Target=\"sharedStrings.xml\"/>");
+    return sb.append("</Relationships>").toString();
+  }
+
+  private static String styles() {
+    return "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+        + "<styleSheet xmlns=\"" + NS + "\">"
+        + "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+        + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>"
+        + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+        + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+        + "<cellXfs count=\"3\">"
+        + "<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+        + "<xf numFmtId=\"22\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+        + "<xf numFmtId=\"4\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+        + "</cellXfs>"
+        + "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>"
+        + "</styleSheet>";
+  }
+
+  private static ZipEntry entry(String name) {
+    ZipEntry entry = new ZipEntry(name);
+    //zip entries hold the local date and time, which setTime works out in the default zone
+    entry.setTime(ENTRY_TIME.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    return entry;
+  }
+
+  private static void putEntry(ZipOutputStream zip, Writer writer, String name, String content) throws IOException {
+    zip.putNextEntry(entry(name));
+    writer.write(content);
+    writer.flush();
+    zip.closeEntry();
+  }
+}
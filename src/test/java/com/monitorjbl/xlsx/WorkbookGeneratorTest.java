@@ -0,0 +1,139 @@
+package com.monitorjbl.xlsx;
+
+import com.monitorjbl.xlsx.WorkbookGenerator.CellKind;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WorkbookGeneratorTest {
+
+  @Test
+  public void testSameSeedWritesSameBytes() throws Exception {
+    WorkbookGenerator generator = WorkbookGenerator.builder().rows(200).columns(6).stringSkew(1.1).emptyCellRatio(0.1);
+    byte[] first = bytes(generator.seed(7));
+    assertArrayEquals(first, bytes(generator.seed(7)));
+    assertFalse(Arrays.equals(first, bytes(generator.seed(8))));
+
+    TimeZone zone = TimeZone.getDefault();
+    try {
+      TimeZone.setDefault(TimeZone.getTimeZone(zone.getRawOffset() == 0 ? "America/New_York" : "UTC"));
+      assertArrayEquals(first, bytes(generator.seed(7)), "in another time zone");
+    } finally {
+      TimeZone.setDefault(zone);
+    }
+  }
+
+  @Test
+  public void testCellKinds() throws Exception {
+    WorkbookGenerator generator = WorkbookGenerator.builder()
+        .rows(50)
+        .columns(6)
+        .cellKinds(CellKind.NUMBER, CellKind.DATE, CellKind.BOOLEAN, CellKind.SHARED_STRING, CellKind.INLINE_STRING, CellKind.FORMULA)
+        .hiddenColumns(1, 4);
+    try(Workbook workbook = StreamingReader.builder().open(new ByteArrayInputStream(bytes(generator)))) {
+      Sheet sheet = workbook.getSheetAt(0);
+      assertTrue(sheet.isColumnHidden(1));
+      assertTrue(sheet.isColumnHidden(4));
+      assertFalse(sheet.isColumnHidden(0));
+
+      int rows = 0;
+      for(Row row : sheet) {
+        rows++;
+        assertEquals(6, row.getPhysicalNumberOfCells());
+        assertEquals(CellType.NUMERIC, row.getCell(0).getCellType());
+        assertTrue(DateUtil.isCellDateFormatted(row.getCell(1)));
+        assertEquals(CellType.BOOLEAN, row.getCell(2).getCellType());
+        assertTrue(row.getCell(3).getStringCellValue().startsWith("shared string "));
+        assertTrue(row.getCell(4).getStringCellValue().startsWith("inline "));
+        assertEquals(CellType.FORMULA, row.getCell(5).getCellType());
+        assertEquals("ROW()*2", row.getCell(5).getCellFormula());
+        assertEquals((row.getRowNum() + 1) * 2, row.getCell(5).getNumericCellValue(), 0);
+      }
+      assertEquals(50, rows);
+    }
+  }
+
+  @Test
+  public void testSparseSheets() throws Exception {
+    WorkbookGenerator generator = WorkbookGenerator.builder()
+        .sheets(2)
+        .rows(1000)
+        .columns(10)
+        .emptyRowRatio(0.5)
+        .emptyCellRatio(0.5);
+    try(Workbook workbook = StreamingReader.builder().open(new ByteArrayInputStream(bytes(generator)))) {
+      assertEquals(2, workbook.getNumberOfSheets());
+      for(Sheet sheet : workbook) {
+        int rows = 0;
+        int cells = 0;
+        for(Row row : sheet) {
+          rows++;
+          cells += row.getPhysicalNumberOfCells();
+        }
+        assertTrue(rows > 400 && rows < 600, "rows: " + rows);
+        assertTrue(cells > rows * 4 && cells < rows * 6, "cells: " + cells);
+      }
+    }
+  }
+
+  @Test
+  public void testStringSkew() throws Exception {
+    WorkbookGenerator generator = WorkbookGenerator.builder()
+        .rows(2000)
+        .columns(1)
+        .cellKinds(CellKind.SHARED_STRING)
+        .distinctStrings(10_000)
+        .stringSkew(1.5);
+    Map<String, Integer> counts = new HashMap<>();
+    try(Workbook workbook = StreamingReader.builder().open(new ByteArrayInputStream(bytes(generator)))) {
+      for(Row row : workbook.getSheetAt(0)) {
+        counts.merge(row.getCell(0).getStringCellValue(), 1, Integer::sum);
+      }
+    }
+    //with that skew the most frequent string comes up in about 40% of cells
+    assertTrue(counts.get(WorkbookGenerator.sharedString(0)) > 600, counts.toString());
+  }
+
+  @Test
+  public void testReadableByPoi() throws Exception {
+    File file = WorkbookGenerator.builder()
+        .rows(100)
+        .cellKinds(CellKind.values())
+        .hiddenColumns(2)
+        .write();
+    try(XSSFWorkbook workbook = new XSSFWorkbook(file)) {
+      Sheet sheet = workbook.getSheetAt(0);
+      assertEquals(99, sheet.getLastRowNum());
+      assertTrue(sheet.isColumnHidden(2));
+      Cell cell = sheet.getRow(0).getCell(3);
+      assertEquals(CellType.STRING, cell.getCellType());
+    } finally {
+      file.delete();
+    }
+  }
+
+  private static byte[] bytes(WorkbookGenerator generator) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    generator.write(os);
+    return os.toByteArray();
+  }
+}
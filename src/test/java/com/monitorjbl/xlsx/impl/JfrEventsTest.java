@@ -0,0 +1,103 @@
+package com.monitorjbl.xlsx.impl;
+
+import com.monitorjbl.xlsx.StreamingReader;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The JFR API is used reflectively here as well, so that this still compiles on Java 8.
+ */
+public class JfrEventsTest {
+
+  @Test
+  public void testNothingBegunWithoutRecording() throws Exception {
+    assumeTrue(!isRecording(), "a flight recording is already running");
+    assertNull(JfrEvents.WORKBOOK_PHASE.begin());
+    assertNull(JfrEvents.ROW_BATCH.begin());
+  }
+
+  @Test
+  public void testEventsRecorded() throws Exception {
+    Class<?> recordingClass;
+    try {
+      recordingClass = Class.forName("jdk.jfr.Recording");
+    } catch(ClassNotFoundException e) {
+      recordingClass = null;
+    }
+    assumeTrue(recordingClass != null, "Java Flight Recorder is not available");
+
+    Path dump = Files.createTempFile("xlsx-streamer", ".jfr");
+    Object recording = recordingClass.getConstructor().newInstance();
+    try {
+      recordingClass.getMethod("start").invoke(recording);
+      try(Workbook workbook = StreamingReader.builder().sstCacheSizeBytes(1024).open(new File("src/test/resources/sheets.xlsx"))) {
+        for(Sheet sheet : workbook) {
+          for(Row row : sheet) {
+            row.getCell(0).getStringCellValue();
+          }
+        }
+      }
+      recordingClass.getMethod("stop").invoke(recording);
+      recordingClass.getMethod("dump", Path.class).invoke(recording, dump);
+
+      List<String> events = new ArrayList<>();
+      Class<?> recordingFile = Class.forName("jdk.jfr.consumer.RecordingFile");
+      for(Object event : (List<?>) recordingFile.getMethod("readAllEvents", Path.class).invoke(null, dump)) {
+        Object type = event.getClass().getMethod("getEventType").invoke(event);
+        String name = (String) type.getClass().getMethod("getName").invoke(type);
+        if(name.equals("com.monitorjbl.xlsx.WorkbookPhase")) {
+          Method getString = event.getClass().getMethod("getString", String.class);
+          events.add(name + ":" + getString.invoke(event, "phase"));
+        } else if(name.startsWith("com.monitorjbl.xlsx.")) {
+          events.add(name);
+        }
+      }
+
+      assertTrue(events.contains("com.monitorjbl.xlsx.WorkbookPhase:open package"), events.toString());
+      assertTrue(events.contains("com.monitorjbl.xlsx.WorkbookPhase:shared strings"), events.toString());
+      assertTrue(events.contains("com.monitorjbl.xlsx.WorkbookPhase:styles"), events.toString());
+      assertTrue(events.contains("com.monitorjbl.xlsx.SharedStringsLoad"), events.toString());
+      assertTrue(events.contains("com.monitorjbl.xlsx.RowBatch"), events.toString());
+    } finally {
+      recordingClass.getMethod("close").invoke(recording);
+      Files.delete(dump);
+    }
+  }
+
+  /**
+   * Whether a recording is running, such as one started with {@code -XX:StartFlightRecording},
+   * without starting up the recorder if nothing has yet.
+   */
+  private static boolean isRecording() throws Exception {
+    Class<?> recorderClass;
+    try {
+      recorderClass = Class.forName("jdk.jfr.FlightRecorder");
+    } catch(ClassNotFoundException e) {
+      return false;
+    }
+    if(!(Boolean) recorderClass.getMethod("isInitialized").invoke(null)) {
+      return false;
+    }
+    Object recorder = recorderClass.getMethod("getFlightRecorder").invoke(null);
+    for(Object recording : (List<?>) recorderClass.getMethod("getRecordings").invoke(recorder)) {
+      Object state = recording.getClass().getMethod("getState").invoke(recording);
+      if("RUNNING".equals(state.toString())) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,104 @@
+package com.monitorjbl.xlsx.impl;
+
+import com.monitorjbl.xlsx.sst.BufferedStringsTable;
+import com.monitorjbl.xlsx.sst.ByteArrayStringList;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.util.StaxHelper;
+import org.apache.poi.xssf.model.StylesTable;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class StringInternerTest {
+  private static final String NS = "xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"";
+
+  @Test
+  public void testSameInstanceAcrossRows() throws Exception {
+    try(BufferedStringsTable sst = sst("first", "second")) {
+      List<Row> plain = readRows(sst, null);
+      List<Row> interned = readRows(sst, new StringInterner(16));
+
+      for(int col = 0; col < 3; col++) {
+        String first = interned.get(0).getCell(col).getStringCellValue();
+        String plainFirst = plain.get(0).getCell(col).getStringCellValue();
+        for(int r = 1; r < interned.size(); r++) {
+          assertEquals(first, interned.get(r).getCell(col).getStringCellValue());
+          assertSame(first, interned.get(r).getCell(col).getStringCellValue());
+          assertNotSame(plainFirst, plain.get(r).getCell(col).getStringCellValue());
+        }
+      }
+      assertEquals("second", interned.get(0).getCell(0).getStringCellValue());
+      assertEquals("inline", interned.get(0).getCell(1).getStringCellValue());
+      assertEquals("formula result", interned.get(0).getCell(2).getStringCellValue());
+    }
+  }
+
+  @Test
+  public void testCollisionsReplaceSlot() throws Exception {
+    try(BufferedStringsTable sst = sst("a", "b", "c")) {
+      StringInterner interner = new StringInterner(2);
+      String a = interner.sharedString(sst, 0);
+      assertSame(a, interner.sharedString(sst, 0));
+      assertEquals("b", interner.sharedString(sst, 1));
+      //index 2 shares a slot with index 0 and replaces it
+      assertEquals("c", interner.sharedString(sst, 2));
+      String again = interner.sharedString(sst, 0);
+      assertEquals("a", again);
+      assertNotSame(a, again);
+    }
+  }
+
+  @Test
+  public void testLongInlineStringsNotInterned() {
+    StringInterner interner = new StringInterner(16);
+    String shortValue = interner.inlineString(new String("short"));
+    assertSame(shortValue, interner.inlineString(new String("short")));
+
+    StringBuilder sb = new StringBuilder();
+    for(int i = 0; i <= StringInterner.MAX_INLINE_LENGTH; i++) {
+      sb.append('x');
+    }
+    String longValue = sb.toString();
+    interner.inlineString(longValue);
+    String copy = new String(longValue);
+    assertSame(copy, interner.inlineString(copy));
+  }
+
+  private static BufferedStringsTable sst(String... values) throws Exception {
+    StringBuilder xml = new StringBuilder("<sst " + NS + ">");
+    for(String value : values) {
+      xml.append("<si><t>").append(value).append("</t></si>");
+    }
+    xml.append("</sst>");
+    return BufferedStringsTable.getSharedStringsTable(new ByteArrayStringList(0),
+        new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static List<Row> readRows(BufferedStringsTable sst, StringInterner interner) throws Exception {
+    StringBuilder xml = new StringBuilder("<worksheet " + NS + "><sheetData>");
+    for(int r = 1; r <= 3; r++) {
+      xml.append("<row r=\"").append(r).append("\">")
+          .append("<c r=\"A").append(r).append("\" t=\"s\"><v>1</v></c>")
+          .append("<c r=\"B").append(r).append("\" t=\"inlineStr\"><is><t>inline</t></is></c>")
+          .append("<c r=\"C").append(r).append("\" t=\"str\"><v>formula result</v></c>")
+          .append("</row>");
+    }
+    xml.append("</sheetData></worksheet>");
+
+    StreamingSheetReader reader = new StreamingSheetReader(sst, new StylesTable(),
+        StaxHelper.newXMLInputFactory().createXMLEventReader(new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8))),
+        false, 10);
+    reader.setStringInterner(interner);
+    List<Row> rows = new ArrayList<>();
+    reader.iterator().forEachRemaining(rows::add);
+    assertEquals(3, rows.size());
+    return rows;
+  }
+}
@@ -0,0 +1,61 @@
+package com.monitorjbl.xlsx.sst;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ByteArrayStringListTest {
+
+  private static String entry(int i) {
+    return "value " + i + (i % 3 == 0 ? " \u00e9\u4e2d\ud83d\ude00" : "");
+  }
+
+  @Test
+  public void testStrings() {
+    for(int cacheSize : new int[]{0, 4096}) {
+      try(ByteArrayStringList list = new ByteArrayStringList(cacheSize)) {
+        StringBuilder large = new StringBuilder();
+        for(int i = 0; i < 300_000; i++) {
+          large.append((char) ('a' + i % 26));
+        }
+
+        for(int i = 0; i < 200_000; i++) {
+          list.add(entry(i));
+          if(i == 1000) {
+            //longer than a page
+            list.add(large.toString() + large + large + large);
+            list.add("");
+          }
+        }
+
+        assertEquals(200_002, list.size());
+        for(int i = 0; i <= 1000; i++) {
+          assertEquals(entry(i), list.getAt(i));
+        }
+        assertEquals(1_200_000, list.getAt(1001).length());
+        assertEquals("", list.getAt(1002));
+        for(int i = 1001; i < 200_000; i++) {
+          assertEquals(entry(i), list.getAt(i + 2));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMemory() {
+    try(ByteArrayStringList list = new ByteArrayStringList(0)) {
+      long encoded = 0;
+      for(int i = 0; i < 500_000; i++) {
+        String value = entry(i);
+        list.add(value);
+        encoded += value.getBytes(StandardCharsets.UTF_8).length + 1;
+      }
+
+      //at most a page of slack on top of the data and its length prefixes
+      assertTrue(list.getAllocatedBytes() <= encoded + (1 << 20), list.getAllocatedBytes() + " vs " + encoded);
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package com.monitorjbl.xlsx.sst;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressedFileBackedListTest {
+
+  private static String entry(int i) {
+    return "entry " + i + (i % 3 == 0 ? " \u00e9\u4e2d\ud83d\ude00" : "") + " of the shared strings table";
+  }
+
+  @Test
+  public void testStrings() throws Exception {
+    File file = File.createTempFile("list", ".sst");
+    file.deleteOnExit();
+    StringBuilder large = new StringBuilder();
+    for(int i = 0; i < 100_000; i++) {
+      large.append((char) ('a' + i % 26));
+    }
+
+    for(int cacheSize : new int[]{0, 256 * 1024}) {
+      try(CompressedFileBackedList list = new CompressedFileBackedList(file, cacheSize)) {
+        for(int i = 0; i < 100_000; i++) {
+          list.add(entry(i));
+          //reading while blocks are still being written
+          if(i % 1000 == 0) {
+            assertEquals(entry(Math.min(i / 2, 5000)), list.getAt(Math.min(i / 2, 5000)));
+            assertEquals(entry(i), list.getAt(list.size() - 1));
+          }
+          if(i == 5000) {
+            //larger than a block
+            list.add(large.toString());
+            list.add("");
+          }
+        }
+
+        assertEquals(100_002, list.size());
+        for(int i = 0; i <= 5000; i++) {
+          assertEquals(entry(i), list.getAt(i));
+        }
+        assertEquals(large.toString(), list.getAt(5001));
+        assertEquals("", list.getAt(5002));
+        for(int i = 5001; i < 100_000; i++) {
+          assertEquals(entry(i), list.getAt(i + 2));
+        }
+      } finally {
+        file.delete();
+      }
+    }
+  }
+
+  @Test
+  public void testCompression() throws Exception {
+    File file = File.createTempFile("list", ".sst");
+    file.deleteOnExit();
+    try(CompressedFileBackedList list = new CompressedFileBackedList(file, 0)) {
+      long raw = 0;
+      for(int i = 0; i < 200_000; i++) {
+        String value = entry(i);
+        list.add(value);
+        raw += value.getBytes(StandardCharsets.UTF_8).length;
+      }
+      assertEquals(list.getFileSize(), file.length());
+      assertTrue(file.length() * 4 < raw, file.length() + " vs " + raw);
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testCacheSmallerThanBlock() throws Exception {
+    File file = File.createTempFile("list", ".sst");
+    file.deleteOnExit();
+    try(CompressedFileBackedList list = new CompressedFileBackedList(file, 1024)) {
+      for(int i = 0; i < 50_000; i++) {
+        list.add(entry(i));
+      }
+
+      //the first hundred strings all fit in the first block
+      for(int i = 0; i < 100; i++) {
+        assertEquals(entry(i), list.getAt(i));
+      }
+      assertEquals(1, list.getDiskReadCount());
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testConcurrentReads() throws Exception {
+    File file = File.createTempFile("list", ".sst");
+    file.deleteOnExit();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try(CompressedFileBackedList list = new CompressedFileBackedList(file, 128 * 1024)) {
+      for(int i = 0; i < 50_000; i++) {
+        list.add(entry(i));
+      }
+
+      List<Future<?>> futures = new ArrayList<>();
+      for(int t = 0; t < 4; t++) {
+        int offset = t;
+        futures.add(executor.submit(() -> {
+          for(int i = 0; i < 50_000; i++) {
+            int index = (i * 31 + offset * 7919) % 50_000;
+            assertEquals(entry(index), list.getAt(index));
+          }
+        }));
+      }
+      for(Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+      file.delete();
+    }
+  }
+}
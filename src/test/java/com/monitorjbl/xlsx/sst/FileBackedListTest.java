@@ -0,0 +1,155 @@
+package com.monitorjbl.xlsx.sst;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileBackedListTest {
+
+  private static String entry(int i) {
+    StringBuilder sb = new StringBuilder("entry ").append(i).append(" \u00e9\u4e2d ");
+    //every so often an entry longer than the segment overlap
+    int repeat = i % 97 == 0 ? 40 : i % 7;
+    for(int j = 0; j < repeat; j++) {
+      sb.append("abcdefgh");
+    }
+    return sb.toString();
+  }
+
+  @Test
+  public void testReadsAcrossSegments() throws Exception {
+    File file = File.createTempFile("list", ".sst");
+    file.deleteOnExit();
+    try(FileBackedList list = new FileBackedList(file, 2048, 10, 64)) {
+      for(int i = 0; i < 5000; i++) {
+        list.add(entry(i));
+        //reading while the file is still growing remaps the last segment
+        if(i % 50 == 0) {
+          assertEquals(entry(i / 2), list.getAt(i / 2));
+        }
+      }
+      for(int i = 0; i < 5000; i++) {
+        assertEquals(entry(i), list.getAt(i));
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testConcurrentReads() throws Exception {
+    File file = File.createTempFile("list", ".sst");
+    file.deleteOnExit();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try(FileBackedList list = new FileBackedList(file, 1024, 12, 128)) {
+      for(int i = 0; i < 20000; i++) {
+        list.add(entry(i));
+      }
+
+      List<Future<?>> futures = new ArrayList<>();
+      for(int t = 0; t < 4; t++) {
+        int offset = t;
+        futures.add(executor.submit(() -> {
+          for(int i = 0; i < 20000; i++) {
+            int index = (i * 31 + offset * 7919) % 20000;
+            assertEquals(entry(index), list.getAt(index));
+          }
+        }));
+      }
+      for(Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+      file.delete();
+    }
+  }
+
+  /**
+   * Reads racing a close have to fail cleanly rather than read unmapped memory.
+   */
+  @Test
+  public void testCloseDuringReads() throws Exception {
+    File file = File.createTempFile("list", ".sst");
+    file.deleteOnExit();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      FileBackedList list = new FileBackedList(file, 0, 12, 128);
+      for(int i = 0; i < 20000; i++) {
+        list.add(entry(i));
+      }
+
+      AtomicInteger reads = new AtomicInteger();
+      List<Future<?>> futures = new ArrayList<>();
+      for(int t = 0; t < 4; t++) {
+        int offset = t;
+        futures.add(executor.submit(() -> {
+          for(int i = 0; ; i++) {
+            int index = (i * 31 + offset * 7919) % 20000;
+            String value;
+            try {
+              value = list.getAt(index);
+            } catch(RuntimeException e) {
+              assertTrue(e.getCause() instanceof ClosedChannelException, e.toString());
+              return;
+            }
+            assertEquals(entry(index), value);
+            reads.incrementAndGet();
+          }
+        }));
+      }
+      while(reads.get() < 10000) {
+        Thread.sleep(1);
+      }
+      list.close();
+      for(Future<?> future : futures) {
+        future.get();
+      }
+      assertThrows(RuntimeException.class, () -> list.getAt(0));
+    } finally {
+      executor.shutdown();
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testBufferedWrites() throws Exception {
+    File file = File.createTempFile("list", ".sst");
+    file.deleteOnExit();
+    StringBuilder large = new StringBuilder();
+    for(int i = 0; i < 100_000; i++) {
+      large.append("abcdefgh");
+    }
+    try(FileBackedList list = new FileBackedList(file, 0)) {
+      for(int i = 0; i < 100; i++) {
+        list.add(entry(i));
+      }
+      //still in the write buffer
+      assertEquals(0, file.length());
+      assertEquals(entry(99), list.getAt(99));
+      assertEquals(entry(0), list.getAt(0));
+
+      //larger than the write buffer
+      list.add(large.toString());
+      list.add(entry(100));
+      assertEquals(large.toString(), list.getAt(100));
+      assertEquals(entry(100), list.getAt(101));
+      for(int i = 0; i < 100; i++) {
+        assertEquals(entry(i), list.getAt(i));
+      }
+    } finally {
+      file.delete();
+    }
+  }
+}
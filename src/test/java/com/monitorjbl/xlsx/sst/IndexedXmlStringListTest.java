@@ -0,0 +1,106 @@
+package com.monitorjbl.xlsx.sst;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class IndexedXmlStringListTest {
+
+  private static IndexedXmlStringList index(String xml, File file, int cacheSizeBytes) throws Exception {
+    try(InputStream is = new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))) {
+      return IndexedXmlStringList.index(is, file, cacheSizeBytes);
+    }
+  }
+
+  @Test
+  public void testEntries() throws Exception {
+    String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+        + "<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" count=\"6\" uniqueCount=\"6\">"
+        + "<si><t>plain</t></si>"
+        + "<si><t xml:space=\"preserve\"> spaced &amp; &lt;escaped&gt; </t></si>"
+        + "<si/>"
+        + "<si><r><rPr><b/></rPr><t>rich</t></r><r><t> text</t></r></si>"
+        + "<si><t>\u00e9\u4e2d\ud83d\ude00</t><rPh sb=\"0\" eb=\"1\"><t>ruby</t></rPh><phoneticPr fontId=\"1\"/></si>\n"
+        + "<si>\n  <t>last</t>\n</si>\n"
+        + "</sst>";
+
+    File file = Files.createTempFile("sst", "").toFile();
+    for(int cacheSize : new int[]{0, 4096}) {
+      try(IndexedXmlStringList list = index(xml, file, cacheSize)) {
+        assertEquals(6, list.size());
+        for(int pass = 0; pass < 2; pass++) {
+          assertEquals("last", list.getAt(5));
+          assertEquals("plain", list.getAt(0));
+          assertEquals(" spaced & <escaped> ", list.getAt(1));
+          assertEquals("", list.getAt(2));
+          assertEquals("rich text", list.getAt(3));
+          assertEquals("\u00e9\u4e2d\ud83d\ude00", list.getAt(4));
+        }
+      } finally {
+        file.delete();
+      }
+    }
+  }
+
+  @Test
+  public void testPrefixedNamespace() throws Exception {
+    String xml = "<x:sst xmlns:x=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+        + "<x:si><x:t>one</x:t></x:si><x:si><x:r><x:t>two</x:t></x:r></x:si></x:sst>";
+
+    File file = Files.createTempFile("sst", "").toFile();
+    try(IndexedXmlStringList list = index(xml, file, 0)) {
+      assertEquals(2, list.size());
+      assertEquals("one", list.getAt(0));
+      assertEquals("two", list.getAt(1));
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testCommentsAndCdata() throws Exception {
+    String xml = "<?xml version=\"1.0\"?><?pi <si>?>\n"
+        + "<!-- <root> <si> -->"
+        + "<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+        + "<!----><!-- <si><t>commented</t></si> -->"
+        + "<si><t><![CDATA[<si>cdata</si>]]]></t></si>"
+        + "<?pi <si><t>instruction</t></si> ??>"
+        + "<si><t>after</t></si>"
+        + "</sst>";
+
+    File file = Files.createTempFile("sst", "").toFile();
+    try(IndexedXmlStringList list = index(xml, file, 0)) {
+      assertEquals(2, list.size());
+      assertEquals("<si>cdata</si>]", list.getAt(0));
+      assertEquals("after", list.getAt(1));
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testManyEntries() throws Exception {
+    StringBuilder xml = new StringBuilder("<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">");
+    for(int i = 0; i < 100_000; i++) {
+      xml.append("<si><t>value ").append(i).append("</t></si>");
+    }
+    xml.append("</sst>");
+
+    File file = Files.createTempFile("sst", "").toFile();
+    try(IndexedXmlStringList list = index(xml.toString(), file, 0)) {
+      assertEquals(100_000, list.size());
+      for(int i = 0; i < 100_000; i += 997) {
+        assertEquals("value " + i, list.getAt(i));
+      }
+      assertEquals("value 99999", list.getAt(99_999));
+    } finally {
+      file.delete();
+    }
+  }
+}
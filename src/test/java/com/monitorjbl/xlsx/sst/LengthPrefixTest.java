@@ -0,0 +1,29 @@
+package com.monitorjbl.xlsx.sst;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LengthPrefixTest {
+
+  @Test
+  public void testRoundTrip() {
+    int[] lengths = {0, 1, 127, 128, 16383, 16384, 2097151, 2097152, Integer.MAX_VALUE};
+    int[] sizes = {1, 1, 1, 2, 2, 3, 3, 4, 5};
+    for(int i = 0; i < lengths.length; i++) {
+      assertEquals(sizes[i], LengthPrefix.size(lengths[i]));
+
+      byte[] data = new byte[8];
+      assertEquals(2 + sizes[i], LengthPrefix.write(data, 2, lengths[i]));
+      assertEquals(lengths[i], LengthPrefix.read(data, 2));
+
+      ByteBuffer buffer = ByteBuffer.allocate(8);
+      buffer.position(1);
+      LengthPrefix.write(buffer, lengths[i]);
+      assertEquals(1 + sizes[i], buffer.position());
+      assertEquals(lengths[i], LengthPrefix.read(buffer, 1));
+    }
+  }
+}
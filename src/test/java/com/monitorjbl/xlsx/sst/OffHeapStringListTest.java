@@ -0,0 +1,85 @@
+package com.monitorjbl.xlsx.sst;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OffHeapStringListTest {
+
+  private static String entry(int i) {
+    return "value " + i + (i % 3 == 0 ? " \u00e9\u4e2d\ud83d\ude00" : "");
+  }
+
+  @Test
+  public void testWithinBudget() throws Exception {
+    File file = Files.createTempFile("sst", "").toFile();
+    try(OffHeapStringList list = new OffHeapStringList(64L * 1024 * 1024, file, 0)) {
+      for(int i = 0; i < 200_000; i++) {
+        list.add(entry(i));
+      }
+
+      assertFalse(list.isOverflowing());
+      assertEquals(0, file.length());
+      assertEquals(200_000, list.size());
+      for(int i = 0; i < 200_000; i++) {
+        assertEquals(entry(i), list.getAt(i));
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testOverflow() throws Exception {
+    File file = Files.createTempFile("sst", "").toFile();
+    try(OffHeapStringList list = new OffHeapStringList(1536 * 1024, file, 4096)) {
+      StringBuilder large = new StringBuilder();
+      for(int i = 0; i < 300_000; i++) {
+        large.append((char) ('a' + i % 26));
+      }
+
+      for(int i = 0; i < 200_000; i++) {
+        list.add(entry(i));
+        if(i == 1000) {
+          //larger than what's left of the budget after the first page
+          list.add(large.toString() + large + large + large);
+        }
+      }
+
+      assertTrue(list.isOverflowing());
+      assertEquals(1024 * 1024, list.getAllocatedBytes());
+      assertTrue(file.length() > 0);
+      assertEquals(200_001, list.size());
+      for(int i = 0; i <= 1000; i++) {
+        assertEquals(entry(i), list.getAt(i));
+      }
+      assertEquals(1_200_000, list.getAt(1001).length());
+      for(int i = 1001; i < 200_000; i++) {
+        assertEquals(entry(i), list.getAt(i + 1));
+      }
+      assertThrows(IndexOutOfBoundsException.class, () -> list.getAt(200_001));
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testReadAfterClose() throws Exception {
+    File file = Files.createTempFile("sst", "").toFile();
+    try {
+      OffHeapStringList list = new OffHeapStringList(64L * 1024 * 1024, file, 0);
+      list.add(entry(0));
+      assertEquals(entry(0), list.getAt(0));
+      list.close();
+      assertThrows(IllegalStateException.class, () -> list.getAt(0));
+    } finally {
+      file.delete();
+    }
+  }
+}
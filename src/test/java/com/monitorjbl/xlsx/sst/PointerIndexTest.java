@@ -0,0 +1,68 @@
+package com.monitorjbl.xlsx.sst;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class PointerIndexTest {
+
+  @Test
+  public void testPointers() {
+    PointerIndex index = new PointerIndex();
+    long pointer = 0;
+    for(int i = 0; i < 100_000; i++) {
+      index.add(pointer);
+      pointer += 4 + (i % 37);
+    }
+
+    assertEquals(100_000, index.size());
+    pointer = 0;
+    for(int i = 0; i < 100_000; i++) {
+      assertEquals(pointer, index.get(i));
+      pointer += 4 + (i % 37);
+    }
+    assertThrows(IndexOutOfBoundsException.class, () -> index.get(100_000));
+  }
+
+  @Test
+  public void testPointersPastFourGigabytes() {
+    PointerIndex index = new PointerIndex();
+    long[] pointers = {0, 10, 0xFFFFFFFFL, 0x100000000L, 0x100000010L, 5L << 40};
+    for(long pointer : pointers) {
+      index.add(pointer);
+    }
+    for(int i = 0; i < pointers.length; i++) {
+      assertEquals(pointers[i], index.get(i));
+    }
+  }
+
+  /**
+   * Checks how much memory the index takes per entry. The same measurement for a
+   * {@code List<Long>} comes to about 38 bytes per entry, 32 of which are retained.
+   */
+  @Test
+  public void testMemoryPerEntry() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+    long thread = Thread.currentThread().getId();
+
+    int entries = 1_000_000;
+    long before = allocations.getThreadAllocatedBytes(thread);
+    PointerIndex index = new PointerIndex();
+    for(int i = 0; i < entries; i++) {
+      index.add(i * 40L);
+    }
+    long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+
+    double perEntry = (double) allocated / entries;
+    assertTrue(perEntry < 4.5, "Expected about 4 bytes per entry, was " + perEntry);
+    assertEquals(999_999 * 40L, index.get(entries - 1));
+  }
+}
@@ -0,0 +1,64 @@
+package com.monitorjbl.xlsx.sst;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SegmentedLruCacheTest {
+
+  @Test
+  public void testOversizedEntriesAreNotCached() {
+    SegmentedLruCache cache = new SegmentedLruCache(1000);
+    StringBuilder large = new StringBuilder();
+    for(int i = 0; i < 1000; i++) {
+      large.append('x');
+    }
+
+    cache.store(0, large.toString());
+    assertNull(cache.getIfPresent(0));
+    assertEquals(0, cache.getSizeBytes());
+
+    cache.store(1, "small");
+    assertEquals("small", cache.getIfPresent(1));
+  }
+
+  @Test
+  public void testFrequentEntriesSurviveScans() {
+    SegmentedLruCache cache = new SegmentedLruCache(2000);
+    for(int i = 0; i < 5; i++) {
+      cache.store(i, "frequent " + i);
+      cache.getIfPresent(i);
+    }
+
+    //a long run of values that are each only read once
+    for(int i = 100; i < 1100; i++) {
+      if(cache.getIfPresent(i) == null) {
+        cache.store(i, "scanned " + i);
+      }
+    }
+
+    for(int i = 0; i < 5; i++) {
+      assertEquals("frequent " + i, cache.getIfPresent(i));
+    }
+    assertTrue(cache.getSizeBytes() <= 2000);
+  }
+
+  @Test
+  public void testAccounting() {
+    SegmentedLruCache cache = new SegmentedLruCache(64 * 1024);
+    for(int i = 0; i < 10000; i++) {
+      if(cache.getIfPresent(i % 2000) == null) {
+        cache.store(i % 2000, "value " + (i % 2000));
+      }
+      assertTrue(cache.getSizeBytes() <= 64 * 1024);
+    }
+
+    assertEquals(10000, cache.getHitCount() + cache.getMissCount());
+    assertTrue(cache.getEvictionCount() > 0);
+    assertNotNull(cache.getIfPresent(1999));
+    assertEquals(SegmentedLruCache.sizeOf("value") + 1, SegmentedLruCache.sizeOf("value!"));
+  }
+}